@@ -0,0 +1,101 @@
+package benchmarks;
+import pagelayout.*;
+import java.awt.*;
+import java.lang.management.*;
+import javax.swing.*;
+
+/**
+	Checks that a steady-state layout of a container allocates nothing.
+	<p>
+	For each kind of tree built by {@link benchmarks.Trees Trees}, with
+	1000 cells, and for each of the four modes of the 
+	{@link benchmarks.LayoutBenchmark LayoutBenchmark}, the container 
+	is laid out by the <code>layoutContainer</code> method of the 
+	layout manager, alternating between two widths, until the 
+	springs, the buffers of the cells and the cache of the bounds are
+	filled and the code has been compiled. The number of bytes 
+	allocated by the calling thread during the following layouts,
+	as reported by the 
+	<code>com.sun.management.ThreadMXBean</code>, must then be zero.
+	</p>
+	<p>
+	The bytes allocated for each combination are printed, and the 
+	exit status is 1 if one of them is not zero, or if the virtual 
+	machine does not count the bytes allocated by a thread. For 
+	example,
+	</p>
+<pre>
+	java -Djava.awt.headless=true benchmarks.AllocationCheck
+</pre>
+**/
+public class AllocationCheck
+{
+	private final static String[] TREES={"nest","grid","card","baseline",
+		"form"};
+	private final static String[] MODES={"default","engine","parallel",
+		"cache"};
+	private final static int SIZE=1000;
+	private final static int WARMUP=20000;
+	private final static int MEASURE=1000;
+
+	public static void main(String args[])
+	{
+		ThreadMXBean bean=ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean)||
+			!((com.sun.management.ThreadMXBean)bean)
+				.isThreadAllocatedMemorySupported())
+		{
+			System.out.println("allocated bytes are not counted");
+			System.exit(1);
+		}
+		com.sun.management.ThreadMXBean b=
+			(com.sun.management.ThreadMXBean)bean;
+		long id=Thread.currentThread().getId();
+		long overhead=b.getThreadAllocatedBytes(id);
+		overhead=b.getThreadAllocatedBytes(id)-overhead;
+		boolean failed=false;
+		System.out.printf("%-10s %8s %-10s %10s%n","tree","cells","mode",
+			"bytes");
+		for(String t:TREES)
+		{
+			for(String mode:MODES)
+			{
+				JPanel panel=new JPanel();
+				PageLayout layout=create(t,mode,panel);
+				Dimension d=layout.preferredLayoutSize(panel);
+				layout(panel,layout,d,WARMUP);
+				long bytes=b.getThreadAllocatedBytes(id);
+				layout(panel,layout,d,MEASURE);
+				bytes=b.getThreadAllocatedBytes(id)-bytes-overhead;
+				System.out.printf("%-10s %8d %-10s %10d%s%n",t,SIZE,mode,
+					bytes,(bytes==0?"":"  FAILED"));
+				if(bytes!=0)failed=true;
+			}
+		}
+		if(failed)System.exit(1);
+	}
+	private static PageLayout create(String tree, String mode, 
+			JPanel panel)
+	{
+		Cell top;
+		if(tree.equals("nest"))top=Trees.nest(SIZE);
+		else if(tree.equals("grid"))top=Trees.grid(SIZE);
+		else if(tree.equals("card"))top=Trees.card(SIZE);
+		else if(tree.equals("form"))top=Trees.form(SIZE);
+		else top=Trees.baseline(SIZE);
+		PageLayout layout=top.createLayout(panel);
+		if(mode.equals("engine"))layout.setUseSpringEngine(true);
+		else if(mode.equals("parallel"))layout.setParallelThreshold(256);
+		else if(mode.equals("cache"))layout.setLayoutCacheSize(8);
+		return layout;
+	}
+	private static void layout(JPanel panel, PageLayout layout, 
+			Dimension d, int count)
+	{
+		for(int i=0;i<count;i++)
+		{
+			panel.setSize(d.width+10*(i&1),d.height);
+			layout.layoutContainer(panel);
+		}
+	}
+}
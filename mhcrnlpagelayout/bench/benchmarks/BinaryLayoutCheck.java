@@ -0,0 +1,118 @@
+package benchmarks;
+import pagelayout.*;
+import java.awt.*;
+import java.io.*;
+import javax.xml.stream.*;
+
+/**
+	Checks that the layouts written by 
+	{@link pagelayout.BinaryLayoutWriter BinaryLayoutWriter} are read
+	back by {@link pagelayout.BinaryLayoutBundle BinaryLayoutBundle}
+	as the same trees of cells.
+	<p>
+	The synthetic trees built by {@link benchmarks.Trees Trees}, with 
+	10 and 1000 cells, are written to the XML form, and into one 
+	bundle, which is written to a temporary file. The bundle is then
+	mapped into memory, each layout is read from it, and the XML form 
+	of the tree read from the bundle is compared with the XML form of
+	the tree read by {@link pagelayout.LayoutXMLReader LayoutXMLReader}
+	from the XML form of the original tree. The latter is used rather
+	than the original document, since the cards of a 
+	{@link pagelayout.CardCell CardCell} are written in the order of 
+	its hash table, which may change when they are added again in 
+	that order. The form of labels and fields is left out, since its
+	components cannot be created from their class names.
+	</p>
+	<p>
+	The size of the bundle is printed, and for each layout the size 
+	of its XML document and whether the round trip through the bundle
+	gives the same XML. The exit status is 1 if one of them does not.
+	For example,
+	</p>
+<pre>
+	java -Djava.awt.headless=true benchmarks.BinaryLayoutCheck
+</pre>
+**/
+public class BinaryLayoutCheck
+{
+	private final static String[] TREES={"nest","grid","card","baseline"};
+	private final static int[] SIZES={10,1000};
+
+	public static void main(String args[]) throws Exception
+	{
+		ComponentXMLSerializer serializer=new ComponentXMLSerializerImpl();
+		BinaryLayoutWriter writer=new BinaryLayoutWriter(serializer);
+		int n=TREES.length*SIZES.length;
+		String[] names=new String[n];
+		String[] documents=new String[n];
+		int k=0;
+		for(String t:TREES)
+		{
+			for(int size:SIZES)
+			{
+				Cell top=build(t,size);
+				names[k]=t+"-"+size;
+				documents[k++]=toXML(top,serializer);
+				writer.add(t+"-"+size,top);
+			}
+		}
+		File file=File.createTempFile("layouts",".plb");
+		file.deleteOnExit();
+		writer.write(file);
+		BinaryLayoutBundle bundle=BinaryLayoutBundle.open(file);
+		LayoutXMLReader reader=new LayoutXMLReader(new StubDeserializer());
+		boolean failed=(bundle.getLayoutNames().length!=n);
+		System.out.println("bundle of "+n+" layouts: "+file.length()+
+			" bytes");
+		System.out.printf("%-14s %10s %6s%n","layout","xml","same");
+		for(int i=0;i<n;i++)
+		{
+			String reference=toXML(
+				reader.read(new StringReader(documents[i])),serializer);
+			boolean same=reference.equals(
+				toXML(bundle.read(names[i],reader),serializer));
+			if(!same)failed=true;
+			System.out.printf("%-14s %10d %6s%n",
+				names[i],documents[i].length(),same?"yes":"no");
+		}
+		if(failed)
+		{
+			System.out.println("The round trip failed.");
+			System.exit(1);
+		}
+	}
+	private static Cell build(String tree, int n)
+	{
+		if(tree.equals("nest"))return Trees.nest(n);
+		if(tree.equals("grid"))return Trees.grid(n);
+		if(tree.equals("card"))return Trees.card(n);
+		return Trees.baseline(n);
+	}
+	private static String toXML(Cell top, ComponentXMLSerializer c)
+	{
+		ByteArrayOutputStream out=new ByteArrayOutputStream();
+		PrintStream ps=new PrintStream(out);
+		top.xmlserialize(new XMLPrintStreamImpl(ps),c);
+		ps.flush();
+		return out.toString();
+	}
+/**
+	Creates a {@link benchmarks.StubComponent StubComponent} for each
+	component, since the class has no constructor without arguments.
+**/
+	private static class StubDeserializer 
+		implements ComponentXMLDeserializer
+	{
+		public Component xmldeserialize(XMLStreamReader in) 
+			throws XMLStreamException
+		{
+			String name=in.getAttributeValue(null,"class");
+			if(!StubComponent.class.getName().equals(name))
+				throw new XMLStreamException(
+					"Unexpected component class "+name,
+					in.getLocation());
+			while(in.next()!=XMLStreamConstants.END_ELEMENT);
+			return new StubComponent(10,10);
+		}
+	}
+}
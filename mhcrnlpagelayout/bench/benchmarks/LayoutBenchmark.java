@@ -0,0 +1,161 @@
+package benchmarks;
+import pagelayout.*;
+import java.awt.*;
+import java.lang.management.*;
+import javax.swing.*;
+
+/**
+	Measures the speed of the layout manager on synthetic trees of cells.
+	<p>
+	For each kind of tree built by {@link benchmarks.Trees Trees}, 
+	i.e. nested rows and columns, a wide grid with spanned cells, a card
+	cell, a column of baseline aligned rows, and a form of labels and
+	text fields, with 10, 1000 and 100000 cells, three operations are 
+	timed:
+	</p>
+	<ul>
+	<li><b>spring</b>: the springs of the whole tree are invalidated and
+	recomputed through the <code>preferredLayoutSize</code> method of
+	the layout manager, </li>
+	<li><b>layout</b>: the container is laid out by the
+	<code>layoutContainer</code> method, alternating between two 
+	widths, and</li>
+	<li><b>resize</b>: the container is resized, cycling through four
+	widths, and invalidated, as it would be by a window being resized,
+	before it is laid out.</li>
+	</ul>
+	<p>
+	The layouts are done in four modes: the default recursive 
+	computation of the springs, the array based engine 
+	({@link pagelayout.PageLayout#setUseSpringEngine setUseSpringEngine}),
+	the parallel computation 
+	({@link pagelayout.PageLayout#setParallelThreshold 
+	setParallelThreshold}), and the default computation with the
+	bounds of the components cached for eight sizes
+	({@link pagelayout.PageLayout#setLayoutCacheSize 
+	setLayoutCacheSize}).
+	For each combination, the number of operations per second and the
+	number of bytes allocated per operation by the calling thread are
+	printed, and, in the last mode, the fraction of the layouts whose 
+	bounds were found in the cache. The bytes allocated by the tasks of
+	the parallel computation are not included.
+	</p>
+	<p>
+	The benchmark runs headless. Except for the form, whose labels and
+	fields are aligned along their baselines, all the components are 
+	{@link benchmarks.StubComponent StubComponent} objects. For example,
+	</p>
+<pre>
+	java -Djava.awt.headless=true benchmarks.LayoutBenchmark nest 100000
+</pre>
+	<p>
+	runs only the nested tree with 100000 cells. The arguments, both of
+	which are optional, select the kind of tree and the number of
+	cells. To compare the parallel computation on different numbers of
+	cores, add the option <code>-XX:ActiveProcessorCount=4</code>, 
+	or <code>-XX:ActiveProcessorCount=16</code>, to the command.
+	</p>
+**/
+public class LayoutBenchmark
+{
+	private final static String[] TREES={"nest","grid","card","baseline",
+		"form"};
+	private final static int[] SIZES={10,1000,100000};
+	private final static String[] MODES={"default","engine","parallel",
+		"cache"};
+	private final static long WARMUP=1000000000L;
+	private final static long MEASURE=2000000000L;
+
+	public static void main(String args[])
+	{
+		String tree=(args.length>0?args[0]:null);
+		int size=(args.length>1?Integer.parseInt(args[1]):-1);
+		System.out.printf("%-10s %8s %-10s %-8s %14s %14s %6s%n",
+			"tree","cells","mode","op","ops/s","bytes/op","hits");
+		for(String t:TREES)
+		{
+			if((tree!=null)&&!tree.equals(t))continue;
+			for(int n:SIZES)
+			{
+				if((size>0)&&(size!=n))continue;
+				for(String mode:MODES)
+				{
+					run(t,n,mode,"spring");
+					run(t,n,mode,"layout");
+					run(t,n,mode,"resize");
+				}
+			}
+		}
+	}
+	private static Cell build(String tree, int n)
+	{
+		if(tree.equals("nest"))return Trees.nest(n);
+		if(tree.equals("grid"))return Trees.grid(n);
+		if(tree.equals("card"))return Trees.card(n);
+		if(tree.equals("form"))return Trees.form(n);
+		return Trees.baseline(n);
+	}
+	private static void run(String tree, int n, String mode, String op)
+	{
+		JPanel panel=new JPanel();
+		Cell top=build(tree,n);
+		PageLayout layout=top.createLayout(panel);
+		if(mode.equals("engine"))layout.setUseSpringEngine(true);
+		else if(mode.equals("parallel"))layout.setParallelThreshold(256);
+		else if(mode.equals("cache"))layout.setLayoutCacheSize(8);
+		Dimension d=layout.preferredLayoutSize(panel);
+		panel.setSize(d);
+		measure(panel,layout,top,d,op,WARMUP);
+		long bytes=allocatedBytes();
+		long hits=layout.getLayoutCacheHits();
+		long misses=layout.getLayoutCacheMisses();
+		long[] result=measure(panel,layout,top,d,op,MEASURE);
+		bytes=allocatedBytes()-bytes;
+		hits=layout.getLayoutCacheHits()-hits;
+		misses=layout.getLayoutCacheMisses()-misses;
+		double opsPerSecond=result[0]*1.e9/result[1];
+		System.out.printf("%-10s %8d %-10s %-8s %14.1f %14s %6s%n",
+			tree,n,mode,op,opsPerSecond,
+			(bytes<0?"n/a":String.valueOf(bytes/result[0])),
+			(hits+misses==0?"-":
+				String.format("%.2f",hits/(double)(hits+misses))));
+	}
+	private static long[] measure(JPanel panel, PageLayout layout, 
+			Cell top, Dimension d, String op, long duration)
+	{
+		long ops=0;
+		long start=System.nanoTime();
+		long elapsed=0;
+		while(elapsed<duration)
+		{
+			if(op.equals("spring"))
+			{
+				top.invalidate();
+				layout.preferredLayoutSize(panel);
+			}
+			else if(op.equals("layout"))
+			{
+				panel.setSize(d.width+10*(int)(ops&1),d.height);
+				layout.layoutContainer(panel);
+			}
+			else
+			{
+				panel.setSize(d.width+10*(int)(ops&3),d.height);
+				panel.invalidate();
+				layout.layoutContainer(panel);
+			}
+			ops++;
+			elapsed=System.nanoTime()-start;
+		}
+		return new long[]{ops,elapsed};
+	}
+	private static long allocatedBytes()
+	{
+		ThreadMXBean bean=ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean))return -1;
+		com.sun.management.ThreadMXBean b=
+			(com.sun.management.ThreadMXBean)bean;
+		if(!b.isThreadAllocatedMemorySupported())return -1;
+		return b.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+import java.awt.*;
+import javax.swing.*;
+
+/**
+	A lightweight component with fixed minimum, preferred and maximum
+	sizes, used by the {@link benchmarks.LayoutBenchmark LayoutBenchmark}
+	in place of the real Swing components. It does not paint anything,
+	it reports a baseline at three quarters of its height, and it is
+	always valid, as a displayed component would be after its container
+	has been validated, so that the layout manager invalidates only the
+	cells whose springs the benchmark invalidates explicitly.
+**/
+public class StubComponent extends JComponent
+{
+	private final static long serialVersionUID=1L;
+	private Dimension min, pref, max;
+	public StubComponent(int width, int height)
+	{
+		min=new Dimension(width/2,height);
+		pref=new Dimension(width,height);
+		max=new Dimension(4*width,height);
+	}
+	public Dimension getMinimumSize()
+	{
+		return min;
+	}
+	public Dimension getPreferredSize()
+	{
+		return pref;
+	}
+	public Dimension getMaximumSize()
+	{
+		return max;
+	}
+	public int getBaseline(int width, int height)
+	{
+		return (3*height)/4;
+	}
+	public boolean isValid()
+	{
+		return true;
+	}
+}
@@ -0,0 +1,158 @@
+package benchmarks;
+import pagelayout.*;
+import javax.swing.*;
+
+/**
+	Builds the synthetic trees of cells used by the 
+	{@link benchmarks.LayoutBenchmark LayoutBenchmark}. Each method
+	returns a tree with approximately the given number of cells. Except
+	for the form, all the components are 
+	{@link benchmarks.StubComponent StubComponent} objects.
+**/
+public class Trees
+{
+	private final static int FANOUT=10;
+
+	/**
+		Nested rows and columns, with ten children per cell,
+		alternating between rows and columns at each level.
+	**/
+	public static Cell nest(int n)
+	{
+		return nest(n,0,false);
+	}
+	private static Cell nest(int n, int seed, boolean isRow)
+	{
+		CellContainer c=(isRow?new Row():new Column());
+		if(n<=FANOUT)
+		{
+			for(int i=0;i<n;i++)c.add(stub(seed+i));
+			return c;
+		}
+		int m=n/FANOUT;
+		for(int i=0;i<FANOUT;i++)c.add(nest(m,seed+i,!isRow));
+		return c;
+	}
+
+	/**
+		A wide grid with horizontally and vertically spanned cells.
+		Every eighth cell of the even rows spans the cell to its left,
+		and the cells of the odd rows below the fourth cell of each
+		such group span the cell above them.
+	**/
+	public static CellGrid grid(int n)
+	{
+		int cols=Math.max(4,(int)Math.sqrt(2*n));
+		int rows=Math.max(2,n/cols);
+		Cell[][] cells=new Cell[rows][cols];
+		for(int i=0;i<rows;i++)
+		for(int j=0;j<cols;j++)
+		{
+			if((i%2==0)&&(j%8==7))cells[i][j]=CellGrid.HSPANCELL;
+			else if((i%2==1)&&(j%8==3))cells[i][j]=CellGrid.VSPANCELL;
+			else cells[i][j]=new ComponentCell(stub(i+j));
+		}
+		return CellGrid.createCellGrid(cells);
+	}
+
+	/**
+		A card cell whose cards are rows of ten components. The size
+		of the cell is the maximum of the sizes of all its cards.
+	**/
+	public static CardCell card(int n)
+	{
+		CardCell card=new CardCell();
+		card.setUseMaxbounds(true);
+		int m=Math.max(1,n/FANOUT);
+		for(int i=0;i<m;i++)
+		{
+			Row row=new Row();
+			for(int j=0;j<FANOUT;j++)row.add(stub(i+j));
+			card.add("card"+i,row);
+		}
+		return card;
+	}
+
+	/**
+		A column of rows of ten components aligned along their
+		baselines.
+	**/
+	public static Column baseline(int n)
+	{
+		Column column=new Column();
+		int m=Math.max(1,n/FANOUT);
+		for(int i=0;i<m;i++)
+		{
+			Row row=new Row(Cell.LEFT,Cell.BASELINE);
+			for(int j=0;j<FANOUT;j++)row.add(stub(i+j));
+			column.add(row);
+		}
+		return column;
+	}
+	/**
+		A form of labels and text fields: a column of rows, each with
+		two label and text field pairs, followed by a grid of such 
+		pairs. The labels and the fields are Swing components whose
+		baselines are aligned by the rows and by the grid.
+	**/
+	public static Column form(int n)
+	{
+		Column column=new Column();
+		int m=Math.max(1,n/8);
+		for(int i=0;i<m;i++)
+		{
+			column.add(new Row(label(i),field(i),label(i+1),
+				field(i+1)));
+		}
+		Cell[][] cells=new Cell[m][4];
+		for(int i=0;i<m;i++)
+		{
+			cells[i][0]=new ComponentCell(label(i));
+			cells[i][1]=new ComponentCell(field(i));
+			cells[i][2]=new ComponentCell(label(i+2));
+			cells[i][3]=new ComponentCell(field(i+2));
+		}
+		column.add(CellGrid.createCellGrid(cells));
+		return column;
+	}
+	private static JLabel label(int seed)
+	{
+		return new FormLabel("Label "+seed);
+	}
+	private static JTextField field(int seed)
+	{
+		return new FormField(5+(seed%4)*5);
+	}
+	/* 
+		Valid like the StubComponent, so that only the springs that 
+		the benchmark invalidates are recomputed. 
+	*/
+	private static class FormLabel extends JLabel
+	{
+		private final static long serialVersionUID=1L;
+		FormLabel(String text)
+		{
+			super(text);
+		}
+		public boolean isValid()
+		{
+			return true;
+		}
+	}
+	private static class FormField extends JTextField
+	{
+		private final static long serialVersionUID=1L;
+		FormField(int columns)
+		{
+			super(columns);
+		}
+		public boolean isValid()
+		{
+			return true;
+		}
+	}
+	private static StubComponent stub(int seed)
+	{
+		return new StubComponent(40+(seed%7)*10,16+(seed%3)*4);
+	}
+}
@@ -0,0 +1,128 @@
+package benchmarks;
+import pagelayout.*;
+import java.io.*;
+import java.lang.management.*;
+
+/**
+	Compares the speed of 
+	{@link pagelayout.XMLPrintStreamImpl XMLPrintStreamImpl} and 
+	{@link pagelayout.BufferedXMLPrintStream BufferedXMLPrintStream},
+	in its indented and compact modes, in writing the XML documents of
+	the synthetic trees of cells built by {@link benchmarks.Trees Trees}.
+	<p>
+	The documents are written to a stream which discards its input.
+	For each tree and writer, the number of documents written per
+	second and the number of bytes allocated per document by the 
+	calling thread are printed, together with the size of the document
+	and whether the document is the same as that written by
+	<code>XMLPrintStreamImpl</code>. For example,
+	</p>
+<pre>
+	java -Djava.awt.headless=true benchmarks.XMLBenchmark grid 1000
+</pre>
+	<p>
+	runs only the grid with 1000 cells. The arguments, both of
+	which are optional, select the kind of tree and the number of
+	cells.
+	</p>
+**/
+public class XMLBenchmark
+{
+	private final static String[] TREES={"nest","grid","card","baseline"};
+	private final static int[] SIZES={10,1000,100000};
+	private final static String[] WRITERS={"printf","buffered","compact"};
+	private final static long WARMUP=1000000000L;
+	private final static long MEASURE=2000000000L;
+
+	public static void main(String args[])
+	{
+		String tree=(args.length>0?args[0]:null);
+		int size=(args.length>1?Integer.parseInt(args[1]):-1);
+		System.out.printf("%-10s %8s %-10s %14s %14s %10s %5s%n",
+			"tree","cells","writer","docs/s","bytes/doc","size","same");
+		for(String t:TREES)
+		{
+			if((tree!=null)&&!tree.equals(t))continue;
+			for(int n:SIZES)
+			{
+				if((size>0)&&(size!=n))continue;
+				Cell top=build(t,n);
+				byte[] reference=write(top,"printf",
+						new ByteArrayOutputStream());
+				for(String w:WRITERS)run(t,n,top,w,reference);
+			}
+		}
+	}
+	private static Cell build(String tree, int n)
+	{
+		if(tree.equals("nest"))return Trees.nest(n);
+		if(tree.equals("grid"))return Trees.grid(n);
+		if(tree.equals("card"))return Trees.card(n);
+		return Trees.baseline(n);
+	}
+	private static void run(String tree, int n, Cell top, String writer,
+			byte[] reference)
+	{
+		byte[] doc=write(top,writer,new ByteArrayOutputStream());
+		measure(top,writer,WARMUP);
+		long bytes=allocatedBytes();
+		long[] result=measure(top,writer,MEASURE);
+		bytes=allocatedBytes()-bytes;
+		double docsPerSecond=result[0]*1.e9/result[1];
+		System.out.printf("%-10s %8d %-10s %14.1f %14s %10d %5s%n",
+			tree,n,writer,docsPerSecond,
+			(bytes<0?"n/a":String.valueOf(bytes/result[0])),
+			doc.length,
+			java.util.Arrays.equals(doc,reference)?"yes":"no");
+	}
+	private static byte[] write(Cell top, String writer, 
+			ByteArrayOutputStream out)
+	{
+		ComponentXMLSerializer c=new ComponentXMLSerializerImpl();
+		if(writer.equals("printf"))
+		{
+			PrintStream ps=new PrintStream(out);
+			top.xmlserialize(new XMLPrintStreamImpl(ps),c);
+			ps.flush();
+		}
+		else
+		{
+			BufferedXMLPrintStream ps=new BufferedXMLPrintStream(
+				new OutputStreamWriter(out),writer.equals("compact"));
+			top.xmlserialize(ps,c);
+			ps.flush();
+		}
+		return out.toByteArray();
+	}
+	private static long[] measure(Cell top, String writer, long duration)
+	{
+		long ops=0;
+		long start=System.nanoTime();
+		long elapsed=0;
+		while(elapsed<duration)
+		{
+			write(top,writer,new NullOutputStream());
+			ops++;
+			elapsed=System.nanoTime()-start;
+		}
+		return new long[]{ops,elapsed};
+	}
+	private static class NullOutputStream extends ByteArrayOutputStream
+	{
+		public void write(int b)
+		{
+		}
+		public void write(byte[] b, int off, int len)
+		{
+		}
+	}
+	private static long allocatedBytes()
+	{
+		ThreadMXBean bean=ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean))return -1;
+		com.sun.management.ThreadMXBean b=
+			(com.sun.management.ThreadMXBean)bean;
+		if(!b.isThreadAllocatedMemorySupported())return -1;
+		return b.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
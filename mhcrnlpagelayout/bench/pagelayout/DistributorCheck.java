@@ -0,0 +1,500 @@
+package pagelayout;
+import java.util.*;
+import static java.lang.Math.*;
+
+/**
+	Compares the {@link pagelayout.SpaceDistributor SpaceDistributor}
+	with the distribution of space done by the earlier versions of
+	<code>Row.getColumnWidths</code> and 
+	<code>Column.getRowHeights</code>, which are copied below.
+	<p>
+	Random sets of springs are distributed over random sizes. The
+	springs are rigid or flexible, gaps or components, and some of 
+	them have a minimum size larger than the preferred size, or a
+	maximum size smaller than it, as the springs of spanned cells may
+	have. For each set the check fails if
+	</p>
+	<ul>
+	<li>the distributor throws an exception, </li>
+	<li>the proportional pass of the earlier versions kept every 
+	spring at or above its minimum size, and the sizes differ from 
+	those of the earlier versions, or</li>
+	<li>the sizes were clamped, the size is more than the sum of the 
+	minimum sizes, and the sizes do not add up to it or a size is 
+	less than its minimum, or the space left by the rigid springs is
+	within the limits of the others and one of them exceeds its 
+	maximum.</li>
+	</ul>
+	<p>
+	The counts are printed, and the exit status is 1 if the check 
+	fails. For example,
+	</p>
+<pre>
+	java pagelayout.DistributorCheck 200000
+</pre>
+	<p>
+	checks 200000 sets of springs; the argument is optional.
+	</p>
+**/
+public class DistributorCheck
+{
+	private static boolean violated;
+	private static int failures;
+	public static void main(String[] args)
+	{
+		int count=(args.length>0?Integer.parseInt(args[0]):200000);
+		Random random=new Random(1);
+		SpaceDistributor distributor=new SpaceDistributor();
+		int[] buffer=null;
+		int inRange=0, clamped=0;
+		for(int k=0;k<count;k++)
+		{
+			int n=1+random.nextInt(random.nextInt(10)==0?40:8);
+			boolean odd=random.nextBoolean();
+			BoundSpring[] springs=new BoundSpring[n];
+			int sumMin=0, sumPref=0;
+			for(int i=0;i<n;i++)
+			{
+				springs[i]=createSpring(random,odd);
+				sumMin+=springs[i].getMinimumWidth();
+				sumPref+=springs[i].getPreferredWidth();
+			}
+			int coordinate=random.nextInt(2);
+			if(coordinate==1)
+				for(int i=0;i<n;i++)
+					springs[i]=transpose(springs[i]);
+			BoundSpring boundSpring=new BoundSpring(sumMin,sumMin,sumMin,
+					sumMin,sumMin,sumMin,false);
+			int size=random.nextInt(2*sumPref+20);
+			violated=false;
+			int[] old=(coordinate==0?
+				oldColumnWidths(size,size,boundSpring,springs,n,null):
+				oldRowHeights(size,size,boundSpring,springs,n,null));
+			int[] sizes;
+			try
+			{
+				sizes=buffer=SpaceDistributor.distribute(springs,n,
+					size,sumMin,coordinate,buffer,distributor);
+			}
+			catch(RuntimeException e)
+			{
+				fail(e.toString(),springs,coordinate,size,old,null);
+				continue;
+			}
+			if(!violated)
+			{
+				inRange++;
+				if(!Arrays.equals(old,sizes))
+					fail("differs",springs,coordinate,size,old,sizes);
+			}
+			else
+			{
+				clamped++;
+				check(springs,coordinate,size,sumMin,old,sizes);
+			}
+		}
+		System.out.println(count+" sets of springs, "+inRange+
+			" in range and identical to the earlier versions, "+
+			clamped+" clamped, "+failures+" failures");
+		if(failures>0)System.exit(1);
+	}
+	private static BoundSpring createSpring(Random random, boolean odd)
+	{
+		boolean gap=(random.nextInt(4)==0);
+		int pref=(gap?random.nextInt(20):1+random.nextInt(100));
+		int min=random.nextInt(pref+1);
+		int max=(random.nextInt(3)==0?Cell.MAX:pref+random.nextInt(200));
+		if(random.nextInt(4)==0)max=pref;
+		else if(odd&&(random.nextInt(5)==0))
+		{
+			if(random.nextBoolean())min=pref+1+random.nextInt(50);
+			else max=random.nextInt(pref+1);
+		}
+		return new BoundSpring(min,pref,max,min,pref,max,gap);
+	}
+	private static BoundSpring transpose(BoundSpring s)
+	{
+		return new BoundSpring(s.getMinimumHeight(),
+			s.getPreferredHeight(),s.getMaximumHeight(),
+			s.getMinimumWidth(),s.getPreferredWidth(),
+			s.getMaximumWidth(),s.isGap());
+	}
+	private static void check(BoundSpring[] springs, int coordinate,
+		int size, int sumMin, int[] old, int[] sizes)
+	{
+		if(size<=sumMin)return;
+		long total=0, rest=size, flexibleMin=0, flexibleMax=0;
+		for(int i=0;i<springs.length;i++)
+		{
+			BoundSpring s=springs[i];
+			int min=s.getSize(0,coordinate);
+			total+=sizes[i];
+			if(sizes[i]<min)
+			{
+				fail("less than minimum",springs,coordinate,size,old,
+						sizes);
+				return;
+			}
+			if(s.isFixed(coordinate))rest-=max(min,s.getSize(2,coordinate));
+			else
+			{
+				flexibleMin+=min;
+				flexibleMax+=max(min,s.getSize(1,coordinate));
+			}
+		}
+		if(total!=size)
+		{
+			fail("sum is "+total,springs,coordinate,size,old,sizes);
+			return;
+		}
+		if((rest<flexibleMin)||(rest>flexibleMax))return;
+		for(int i=0;i<springs.length;i++)
+		{
+			BoundSpring s=springs[i];
+			if(s.isFixed(coordinate))continue;
+			if(sizes[i]>max(s.getSize(0,coordinate),s.getSize(1,coordinate)))
+			{
+				fail("more than maximum",springs,coordinate,size,old,
+						sizes);
+				return;
+			}
+		}
+	}
+	private static void fail(String message, BoundSpring[] springs,
+		int coordinate, int size, int[] old, int[] sizes)
+	{
+		if(failures++>=10)return;
+		StringBuffer b=new StringBuffer(message+": size "+size);
+		for(BoundSpring s:springs)
+		{
+			b.append(" ["+s.getSize(0,coordinate)+","+
+				s.getSize(2,coordinate)+","+s.getSize(1,coordinate));
+			if(s.isFixed(coordinate))b.append(" rigid");
+			if(s.isGap())b.append(" gap");
+			b.append("]");
+		}
+		b.append(" old "+Arrays.toString(old));
+		if(sizes!=null)b.append(" new "+Arrays.toString(sizes));
+		System.out.println(b);
+	}
+/*
+	Row.getColumnWidths of the earlier versions. The flag violated is
+	set if the proportional pass puts a spring below its minimum size.
+*/
+	private static int[] oldColumnWidths(int width,int height,
+		BoundSpring boundSpring, BoundSpring columnSprings[], int n,
+		int[] buffer)
+	{
+		BoundSpring p=boundSpring;
+		BoundSpring csprings[]=columnSprings;
+		int w=width;
+		int h=height;
+		int[] widthArray=Cell.getBuffer(buffer,n); 
+		//int pw=p.getPreferredWidth();
+		int pw=p.getMinimumWidth();
+		if(w>pw)
+		{
+			float available=0;
+			int last=-1;
+			int mingap=0;
+			int lastc=-1;
+			int numGap=0;
+			int numComp=0;
+			int comp=0;
+			for(int i=0;i<n;i++)
+			{
+				int cw=csprings[i].getPreferredWidth();
+				if(csprings[i].isXFixed())
+				{
+					widthArray[i]=cw;
+					w-=cw;
+				}
+				else 
+				{
+					available+=cw;
+					last=i;
+					if(csprings[i].isGap())
+					{
+					  mingap+=csprings[i].getMinimumWidth();
+					  numGap++;
+					}
+					else
+					{
+					  lastc=i;
+					  numComp++;
+					  comp+=cw;
+			
+					}
+				}
+			}
+			if(last>=0)
+			{
+			  int used=0;
+		          int minw=0;
+                          int mw=0;
+                          int cw=0;
+			  if((numGap==0)||(mingap>w)||(numComp==0))
+		          {
+			     float ratio=w/available;
+			     available=0;
+			     for(int i=0;i<=last;i++)
+			     {
+				if(csprings[i].isXFixed())continue;
+				int pcw=csprings[i].getPreferredWidth();
+				cw=round(pcw*ratio);
+				if(i<last)widthArray[i]=cw;
+			        else cw=widthArray[last]=round(w-used);
+				used+=cw;
+				mw =csprings[i].getMinimumWidth();
+				if(mw>widthArray[i]){violated=true;minw+=mw;}
+				else available+=pcw;
+			     }
+			     if((minw>0)&&(minw<w))
+			     { 
+   				ratio=(w-minw)/available;
+			        for(int i=0;i<=last;i++)
+			        {
+				   if(csprings[i].isXFixed())continue;
+				   int pcw=csprings[i].getPreferredWidth();
+				   mw=csprings[i].getMinimumWidth();
+				   if(i<last)
+				   {
+					if(widthArray[i]<mw)
+						cw=mw;
+				   	 else cw=round(pcw*ratio);
+					widthArray[i]=cw;
+					used+=cw;
+				   }
+			           else widthArray[last]=round(w-used);
+                               }
+			     }
+			     
+			  }
+			  else
+			  {
+			     float wc=w-mingap;
+			     float ratio=wc/comp;
+			     used=0;
+			     cw=0;
+			     minw=0;
+			     for(int i=0;i<=last;i++)
+			     {
+				if(csprings[i].isXFixed())continue;
+				if(csprings[i].isGap())
+				{
+					cw=csprings[i].getMinimumWidth();
+					widthArray[i]=cw;
+					continue;
+				}
+				int cwe=csprings[i].getPreferredWidth();
+				mw=csprings[i].getMinimumWidth();
+				if(i<lastc)
+				{	
+					cw=round(cwe*ratio);
+					widthArray[i]=cw;
+					used+=cw;
+				}
+			        else
+			          cw=widthArray[lastc]=round(wc-used);
+					if(cw<mw){violated=true;minw+=cw;}
+					else comp+=cwe;
+			     }
+			     if((minw>0)&&(minw<wc))
+			     {
+			       ratio=(wc-minw)/comp;
+			       used=0;
+			       for(int i=0;i<=last;i++)
+			       {
+				if(csprings[i].isXFixed())continue;
+				if(csprings[i].isGap())continue;
+				mw=csprings[i].getMinimumWidth();
+				int cwe=csprings[i].getPreferredWidth();
+				if(i<last)
+				{
+			            if(widthArray[i]<mw)cw=mw;
+				    else cw=(int)(ratio*cwe);
+				    widthArray[i]=cw;
+				    used+=cw;
+			       }
+			       else widthArray[i]=Math.round(wc-used);
+	                      }
+			     }
+	                    }
+				
+	                }
+		}
+		else for(int i=0;i<n;i++)
+			widthArray[i]=csprings[i].getMinimumWidth();
+			//widthArray[i]=csprings[i].getPreferredWidth();
+		return widthArray;
+	}
+/*
+	Column.getRowHeights of the earlier versions, with the same flag.
+*/
+	private static int[] oldRowHeights(int width,int height,
+			BoundSpring boundSpring, BoundSpring[] rowSprings,int n,
+			int[] buffer)
+	{
+		int w=width;
+		int h=height;
+		BoundSpring p=boundSpring;
+		int[] heightArray=Cell.getBuffer(buffer,n); 
+		//int ph=p.getPreferredHeight();
+		int ph=p.getMinimumHeight();
+		if(h>ph)
+		{
+			float available=0;
+			int last=-1;
+			int mingap=0;
+			int lastr=-1;;
+			int numGap=0;
+			int numComp=0;
+			int comp=0;
+			for(int i=0;i<n;i++)
+			{
+				int rh=rowSprings[i].getPreferredHeight();
+				if(rowSprings[i].isYFixed())
+				{
+					heightArray[i]=rh;
+					h-=rh;
+				}
+				else 
+				{
+					available+=rh;
+					last=i;
+					if(rowSprings[i].isGap())
+					{
+					  mingap+=
+					   rowSprings[i].getMinimumHeight();
+					  numGap++;
+					}
+					else
+					{
+					  lastr=i;
+					  numComp++;
+					  comp+=rh;
+				        }
+				} 
+			}
+			if(last>=0)
+			{
+			   int used=0;
+			   if((numGap==0)||(mingap>h)||(numComp==0))
+			   {
+			     float ratio=h/available;
+			     int minh=0;
+			     int toolow=0;
+			     available=0;
+			     for(int i=0;i<last;i++)
+			     {
+				if(rowSprings[i].isYFixed())continue;
+				int phe=rowSprings[i].getPreferredHeight();
+				int rh=round(phe*ratio);
+				heightArray[i]=rh;
+				int mh=rowSprings[i].getMinimumHeight();
+				if(rh<mh)
+				{
+					violated=true;
+					toolow++;
+					minh+=mh;
+				}	
+				else available+=phe;
+				used+=rh;
+			     }
+			     heightArray[last]=round(h-used);
+			     if(heightArray[last]<
+				 rowSprings[last].getMinimumHeight())
+			     {
+					violated=true;
+					toolow++;
+					minh+=
+				        rowSprings[last].getMinimumHeight();
+			     }
+			     else available+=
+				 rowSprings[last].getPreferredHeight();
+			     if((toolow>0)&&(minh<h))
+			     {
+				
+			        ratio=(h-minh)/available;
+				used=0;
+			        for(int i=0;i<last;i++)
+			        {
+				  if(rowSprings[i].isYFixed())continue;
+				  int rh=rowSprings[i].getPreferredHeight();
+				  rh=round(rh*ratio);
+				  heightArray[i]=rh;
+				  int mh=rowSprings[i].getMinimumHeight();
+				  if(rh<mh)
+					rh=heightArray[i]=mh;
+				  used+=rh;
+			        }
+			        heightArray[last]=round(h-used);
+			     }
+			   }
+			   else
+			   {
+	 	              float hc=h-mingap;
+			      float ratio=hc/comp;
+			      int minh=0;
+			      comp=0;
+	                      int rh=0;
+                              for(int i=0;i<=last;i++)
+			      {
+				  if(rowSprings[i].isYFixed())continue;
+                                  if(rowSprings[i].isGap())
+				  {
+				  	heightArray[i]=rowSprings[i].
+							getMinimumHeight();
+					continue;
+				  }
+				  int phe=rowSprings[i].getPreferredHeight
+							();
+				  if(i<lastr)
+				  {
+					rh=round(phe*ratio);
+					heightArray[i]=rh;
+					used+=rh;	
+				  }
+				  else
+			      		rh=heightArray[i]=round(hc-used);
+				  int mh=rowSprings[i].getMinimumHeight();
+				  if(rh<mh){violated=true;minh+=mh;}
+				  else comp+=phe;
+
+                              }
+			      if((minh>0)&&(minh<hc))
+			      {
+			      	ratio=(hc-minh)/comp;
+                                used=0;
+			        for(int i=0;i<=last;i++)
+			        {
+				  if(rowSprings[i].isYFixed())continue;
+                                  if(rowSprings[i].isGap())continue;
+				  int mh=rowSprings[i].getMinimumHeight();
+				  if(mh>heightArray[i])
+					rh=mh;
+				  else
+				  {
+				        int phe=rowSprings[i].getPreferredHeight();
+					rh=round(phe*ratio);
+				  }
+				  if(i<lastr)
+				  {
+					heightArray[i]=rh;
+					used+=rh;	
+				  }
+				  else
+			      		rh=heightArray[i]=round(hc-used);
+
+                                 }
+			      }
+			   
+			   }
+			}
+		}
+		else for(int i=0;i<n;i++)
+			heightArray[i]=rowSprings[i].getMinimumHeight();
+			//heightArray[i]=rowSprings[i].getPreferredHeight();
+		return heightArray;
+	}
+}
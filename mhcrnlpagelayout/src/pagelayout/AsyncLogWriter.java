@@ -0,0 +1,194 @@
+package pagelayout;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+class AsyncLogWriter implements Runnable
+{
+		private static final int BATCH_SIZE=64*1024;
+		private final AtomicReferenceArray<String> slots;
+		private final int mask;
+		private final AtomicLong tail=new AtomicLong();
+		private final AtomicLong dropped=new AtomicLong();
+		private volatile long head;
+		private volatile boolean sleeping;
+		private volatile boolean closed;
+		private final boolean blockWhenFull;
+		private final File file;
+		private final long maxFileSize;
+		private final int maxFiles;
+		private FileChannel channel;
+		private long fileSize;
+		private final ByteBuffer buffer=ByteBuffer.allocate(BATCH_SIZE);
+		private final Thread thread;
+		AsyncLogWriter(File file, int capacity, boolean blockWhenFull,
+				long maxFileSize, int maxFiles) throws IOException
+		{
+			int n=1;
+			while(n<capacity)n<<=1;
+			slots=new AtomicReferenceArray<String>(n);
+			mask=n-1;
+			this.file=file;
+			this.blockWhenFull=blockWhenFull;
+			this.maxFileSize=maxFileSize;
+			this.maxFiles=maxFiles;
+			open();
+			thread=new Thread(this,"pagelayout-log-writer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		boolean offer(String line)
+		{
+			while(true)
+			{
+				if(closed)return false;
+				long t=tail.get();
+				if(t-head>=slots.length())
+				{
+					if(!blockWhenFull)
+					{
+						dropped.incrementAndGet();
+						return false;
+					}
+					wakeWriter();
+					LockSupport.parkNanos(100000L);
+					continue;
+				}
+				if(tail.compareAndSet(t,t+1))
+				{
+					slots.set((int)(t&mask),line);
+					if(sleeping)wakeWriter();
+					return true;
+				}
+			}
+		}
+		long getDroppedCount()
+		{
+			return dropped.get();
+		}
+		void close()
+		{
+			closed=true;
+			wakeWriter();
+			try{thread.join(5000);}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		private void wakeWriter()
+		{
+			LockSupport.unpark(thread);
+		}
+		public void run()
+		{
+			long reported=0;
+			try
+			{
+				while(true)
+				{
+					boolean done=closed;
+					int n=drain();
+					long d=dropped.get();
+					if(d!=reported)
+					{
+						append("LoggingManager::dropped "+(d-reported)+
+							" messages");
+						reported=d;
+					}
+					if(buffer.position()>0)writeBuffer();
+					if(n>0)continue;
+					if(done)break;
+					sleeping=true;
+					if(slots.get((int)(head&mask))==null)
+						LockSupport.parkNanos(50000000L);
+					sleeping=false;
+				}
+			}
+			catch(IOException e)
+			{
+				closed=true;
+				e.printStackTrace();
+			}
+			finally
+			{
+				try{channel.close();}catch(IOException e){}
+			}
+		}
+		private int drain() throws IOException
+		{
+			int n=0;
+			long h=head;
+			while(true)
+			{
+				int i=(int)(h&mask);
+				String s=slots.get(i);
+				if(s==null)break;
+				slots.set(i,null);
+				head=++h;
+				append(s);
+				n++;
+			}
+			return n;
+		}
+		private void append(String s) throws IOException
+		{
+			byte[] b=(s+System.lineSeparator()).getBytes(
+				StandardCharsets.UTF_8);
+			if((maxFileSize>0)&&(fileSize+buffer.position()+b.length
+				>maxFileSize)&&(fileSize+buffer.position()>0))
+			{
+				writeBuffer();
+				rotate();
+			}
+			if(b.length>buffer.remaining())
+			{
+				writeBuffer();
+				if(b.length>buffer.capacity())
+				{
+					write(ByteBuffer.wrap(b));
+					return;
+				}
+			}
+			buffer.put(b);
+		}
+		private void writeBuffer() throws IOException
+		{
+			buffer.flip();
+			write(buffer);
+			buffer.clear();
+		}
+		private void write(ByteBuffer b) throws IOException
+		{
+			while(b.hasRemaining())fileSize+=channel.write(b);
+		}
+		private void rotate() throws IOException
+		{
+			channel.close();
+			String name=file.getPath();
+			if(maxFiles>0)
+			{
+				new File(name+"."+maxFiles).delete();
+				for(int i=maxFiles-1;i>0;i--)
+				{
+					new File(name+"."+i).renameTo(
+						new File(name+"."+(i+1)));
+				}
+				file.renameTo(new File(name+".1"));
+			}
+			open();
+		}
+		private void open() throws IOException
+		{
+			RandomAccessFile f=new RandomAccessFile(file,"rw");
+			f.setLength(0);
+			channel=f.getChannel();
+			fileSize=0;
+		}
+}
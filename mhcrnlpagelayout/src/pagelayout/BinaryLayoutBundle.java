@@ -0,0 +1,220 @@
+/*
+	------------------------------------------------
+	BinaryLayoutBundle.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import javax.xml.stream.*;
+/**
+	A bundle of layouts written by 
+	{@link pagelayout.BinaryLayoutWriter BinaryLayoutWriter}. The
+	bundle is usually mapped into memory with 
+	{@link pagelayout.BinaryLayoutBundle#open open}. Only the directory
+	of the layouts is read when the bundle is opened; the strings
+	are decoded when they are first needed, and the cells and 
+	components of a layout are created only when the layout is
+	retrieved by {@link pagelayout.BinaryLayoutBundle#read read}.
+
+	<p>
+	The cells are created by a 
+	{@link pagelayout.LayoutXMLReader LayoutXMLReader}, from the same
+	elements and attributes that it reads from the XML documents 
+	written by the cells.
+	</p>
+**/
+public class BinaryLayoutBundle
+{
+	private ByteBuffer buffer;
+	private int[] stringOffsets;
+	private int[] stringLengths;
+	private String[] strings;
+	private LinkedHashMap<String,int[]> layouts;
+	private LayoutXMLReader reader;
+	private final static Charset UTF8=Charset.forName("UTF-8");
+/**
+	Maps a bundle file into memory.
+
+	@param file the file written by 
+		{@link pagelayout.BinaryLayoutWriter#write(File) 
+		BinaryLayoutWriter.write}.
+	@return The bundle.
+**/
+	public static BinaryLayoutBundle open(File file) throws IOException
+	{
+		RandomAccessFile f=new RandomAccessFile(file,"r");
+		try
+		{
+			FileChannel channel=f.getChannel();
+			return new BinaryLayoutBundle(channel.map(
+				FileChannel.MapMode.READ_ONLY,0,channel.size()));
+		}
+		finally
+		{
+			f.close();
+		}
+	}
+/**
+	Creates a bundle from a buffer which holds the contents written 
+	by {@link pagelayout.BinaryLayoutWriter BinaryLayoutWriter}.
+
+	@param buffer the buffer, e.g. a <code>MappedByteBuffer</code>.
+**/
+	public BinaryLayoutBundle(ByteBuffer buffer) throws IOException
+	{
+		this.buffer=buffer.duplicate();
+		ByteBuffer in=buffer.duplicate();
+		try
+		{
+			if(in.getInt()!=BinaryLayoutWriter.MAGIC)
+				throw new IOException("Not a layout bundle");
+			int n=readVarint(in);
+			stringOffsets=new int[n+1];
+			stringLengths=new int[n+1];
+			strings=new String[n+1];
+			for(int i=1;i<=n;i++)
+			{
+				int length=readVarint(in);
+				stringOffsets[i]=in.position();
+				stringLengths[i]=length;
+				in.position(in.position()+length);
+			}
+			n=readVarint(in);
+			int[] names=new int[n];
+			int[] lengths=new int[n];
+			for(int i=0;i<n;i++)
+			{
+				names[i]=readVarint(in);
+				lengths[i]=readVarint(in);
+			}
+			layouts=new LinkedHashMap<String,int[]>();
+			int offset=in.position();
+			for(int i=0;i<n;i++)
+			{
+				layouts.put(getString(names[i]),
+					new int[]{offset,lengths[i]});
+				offset+=lengths[i];
+			}
+			if(offset>in.limit())
+				throw new IOException("The layout bundle is truncated");
+		}
+		catch(BufferUnderflowException e)
+		{
+			throw new IOException("The layout bundle is truncated");
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new IOException("The layout bundle is corrupt");
+		}
+		catch(IndexOutOfBoundsException e)
+		{
+			throw new IOException("The layout bundle is corrupt");
+		}
+	}
+/**
+	Returns the names of the layouts in this bundle, in the order in
+	which they were added to the writer.
+
+	@return The names of the layouts.
+**/
+	public String[] getLayoutNames()
+	{
+		return layouts.keySet().toArray(new String[layouts.size()]);
+	}
+/**
+	Returns <code>true</code> if this bundle has a layout with the
+	specified name.
+
+	@param name the name of the layout.
+**/
+	public boolean contains(String name)
+	{
+		return layouts.containsKey(name);
+	}
+/**
+	Creates the tree of cells of a layout, using a 
+	{@link pagelayout.LayoutXMLReader LayoutXMLReader} with the
+	default deserializer of the components. This method should not be
+	called by more than one thread at a time.
+
+	@param name the name of the layout.
+	@return The top level cell of the layout, or <code>null</code> 
+		if the bundle does not have a layout with the specified name.
+**/
+	public Cell read(String name) throws XMLStreamException
+	{
+		if(reader==null)reader=new LayoutXMLReader();
+		return read(name,reader);
+	}
+/**
+	Creates the tree of cells of a layout.
+
+	@param name the name of the layout.
+	@param reader the reader used to create the cells.
+	@return The top level cell of the layout, or <code>null</code> 
+		if the bundle does not have a layout with the specified name.
+**/
+	public Cell read(String name, LayoutXMLReader reader) 
+		throws XMLStreamException
+	{
+		XMLStreamReader in=createXMLStreamReader(name);
+		if(in==null)return null;
+		return reader.read(in);
+	}
+/**
+	Returns a StAX reader of the elements of a layout. The elements
+	and attributes are the same as those of the XML document written
+	by the top level cell of the layout.
+
+	@param name the name of the layout.
+	@return The reader, or <code>null</code> if the bundle does not
+		have a layout with the specified name.
+**/
+	public XMLStreamReader createXMLStreamReader(String name)
+	{
+		int[] layout=layouts.get(name);
+		if(layout==null)return null;
+		ByteBuffer in=buffer.duplicate();
+		in.limit(layout[0]+layout[1]);
+		in.position(layout[0]);
+		return new BinaryLayoutStreamReader(this,in);
+	}
+	String getString(int index)
+	{
+		if(index==0)return null;
+		String s=strings[index];
+		if(s==null)
+		{
+			byte[] b=new byte[stringLengths[index]];
+			ByteBuffer in=buffer.duplicate();
+			in.position(stringOffsets[index]);
+			in.get(b);
+			strings[index]=s=new String(b,UTF8);
+		}
+		return s;
+	}
+	static int readVarint(ByteBuffer in)
+	{
+		int value=0;
+		for(int shift=0; ;shift+=7)
+		{
+			int b=in.get();
+			value|=(b&0x7f)<<shift;
+			if((b&0x80)==0)return value;
+		}
+	}
+}
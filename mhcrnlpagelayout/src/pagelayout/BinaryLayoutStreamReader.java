@@ -0,0 +1,246 @@
+/*
+	------------------------------------------------
+	BinaryLayoutStreamReader.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.nio.*;
+import java.util.*;
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+/**
+	Presents a layout of a {@link pagelayout.BinaryLayoutBundle 
+	BinaryLayoutBundle} as a StAX stream of start and end elements, so 
+	that it can be read by {@link pagelayout.LayoutXMLReader 
+	LayoutXMLReader}. There are no namespaces, text or other events.
+**/
+class BinaryLayoutStreamReader implements XMLStreamReader
+{
+	private BinaryLayoutBundle bundle;
+	private ByteBuffer in;
+	private int event;
+	private String localName;
+	private String[] elements;
+	private int depth;
+	private String[] attributeNames;
+	private String[] attributeValues;
+	private int attributeCount;
+	BinaryLayoutStreamReader(BinaryLayoutBundle bundle, ByteBuffer in)
+	{
+		this.bundle=bundle;
+		this.in=in;
+		event=START_DOCUMENT;
+		elements=new String[16];
+		depth=0;
+		attributeNames=new String[8];
+		attributeValues=new String[8];
+		attributeCount=0;
+	}
+	public int next() throws XMLStreamException
+	{
+		if(event==END_DOCUMENT)throw new NoSuchElementException();
+		attributeCount=0;
+		try
+		{
+			if(!in.hasRemaining())
+			{
+				if(depth!=0)
+					throw new XMLStreamException(
+						"The layout is truncated",getLocation());
+				localName=null;
+				return event=END_DOCUMENT;
+			}
+			int op=in.get();
+			if(op==BinaryLayoutWriter.END_ELEMENT)
+			{
+				if(depth==0)
+					throw new XMLStreamException(
+						"Unbalanced end of element",getLocation());
+				localName=elements[--depth];
+				return event=END_ELEMENT;
+			}
+			if(op!=BinaryLayoutWriter.BEGIN_ELEMENT)
+				throw new XMLStreamException(
+					"Unexpected code "+op,getLocation());
+			localName=bundle.getString(
+					BinaryLayoutBundle.readVarint(in));
+			if(depth==elements.length)
+				elements=Arrays.copyOf(elements,2*depth);
+			elements[depth++]=localName;
+			while(in.hasRemaining())
+			{
+				int type=in.get(in.position());
+				if((type<BinaryLayoutWriter.STRING_ATTRIBUTE)||
+				   (type>BinaryLayoutWriter.BOOLEAN_ATTRIBUTE))break;
+				in.get();
+				readAttribute(type);
+			}
+			return event=START_ELEMENT;
+		}
+		catch(BufferUnderflowException e)
+		{
+			throw new XMLStreamException("The layout is truncated",
+					getLocation());
+		}
+		catch(IndexOutOfBoundsException e)
+		{
+			throw new XMLStreamException("The layout is corrupt",
+					getLocation());
+		}
+	}
+	private void readAttribute(int type)
+	{
+		String name=bundle.getString(BinaryLayoutBundle.readVarint(in));
+		String value;
+		switch(type)
+		{
+			case BinaryLayoutWriter.STRING_ATTRIBUTE:
+				value=bundle.getString(
+					BinaryLayoutBundle.readVarint(in));
+				break;
+			case BinaryLayoutWriter.INT_ATTRIBUTE:
+				int v=BinaryLayoutBundle.readVarint(in);
+				value=Integer.toString((v>>>1)^-(v&1));
+				break;
+			case BinaryLayoutWriter.DOUBLE_ATTRIBUTE:
+				value=Double.toString(in.getDouble());
+				break;
+			default:
+				value=(in.get()!=0?"true":"false");
+		}
+		if(attributeCount==attributeNames.length)
+		{
+			attributeNames=Arrays.copyOf(attributeNames,
+					2*attributeCount);
+			attributeValues=Arrays.copyOf(attributeValues,
+					2*attributeCount);
+		}
+		attributeNames[attributeCount]=name;
+		attributeValues[attributeCount++]=value;
+	}
+	public int nextTag() throws XMLStreamException
+	{
+		int e=next();
+		if((e!=START_ELEMENT)&&(e!=END_ELEMENT))
+			throw new XMLStreamException(
+				"A start or end element was expected",getLocation());
+		return e;
+	}
+	public boolean hasNext()
+	{
+		return event!=END_DOCUMENT;
+	}
+	public void require(int type, String namespaceURI, String localName)
+		throws XMLStreamException
+	{
+		if((type!=event)||((localName!=null)&&
+				!localName.equals(this.localName)))
+			throw new XMLStreamException("The event "+type+" "+
+				localName+" was expected",getLocation());
+	}
+	public String getElementText() throws XMLStreamException
+	{
+		if(event!=START_ELEMENT)
+			throw new XMLStreamException(
+				"Not at the start of an element",getLocation());
+		if(next()!=END_ELEMENT)
+			throw new XMLStreamException(
+				"The element has children",getLocation());
+		return "";
+	}
+	public int getEventType(){ return event;}
+	public boolean isStartElement(){ return event==START_ELEMENT;}
+	public boolean isEndElement(){ return event==END_ELEMENT;}
+	public boolean isCharacters(){ return false;}
+	public boolean isWhiteSpace(){ return false;}
+	public String getLocalName(){ return localName;}
+	public QName getName(){ return new QName(localName);}
+	public boolean hasName()
+	{
+		return (event==START_ELEMENT)||(event==END_ELEMENT);
+	}
+	public String getAttributeValue(String namespaceURI, String localName)
+	{
+		for(int i=0;i<attributeCount;i++)
+			if(attributeNames[i].equals(localName))
+				return attributeValues[i];
+		return null;
+	}
+	public int getAttributeCount(){ return attributeCount;}
+	public QName getAttributeName(int index)
+	{
+		return new QName(attributeNames[index]);
+	}
+	public String getAttributeLocalName(int index)
+	{
+		return attributeNames[index];
+	}
+	public String getAttributeValue(int index)
+	{
+		return attributeValues[index];
+	}
+	public String getAttributeNamespace(int index){ return null;}
+	public String getAttributePrefix(int index){ return "";}
+	public String getAttributeType(int index){ return "CDATA";}
+	public boolean isAttributeSpecified(int index){ return true;}
+	public int getNamespaceCount(){ return 0;}
+	public String getNamespacePrefix(int index){ return null;}
+	public String getNamespaceURI(int index){ return null;}
+	public String getNamespaceURI(String prefix){ return null;}
+	public String getNamespaceURI(){ return null;}
+	public NamespaceContext getNamespaceContext(){ return null;}
+	public String getPrefix(){ return "";}
+	public boolean hasText(){ return false;}
+	public String getText()
+	{
+		throw new IllegalStateException("The layout has no text");
+	}
+	public char[] getTextCharacters()
+	{
+		throw new IllegalStateException("The layout has no text");
+	}
+	public int getTextCharacters(int sourceStart, char[] target, 
+			int targetStart, int length)
+	{
+		throw new IllegalStateException("The layout has no text");
+	}
+	public int getTextStart()
+	{
+		throw new IllegalStateException("The layout has no text");
+	}
+	public int getTextLength()
+	{
+		throw new IllegalStateException("The layout has no text");
+	}
+	public Location getLocation()
+	{
+		final int offset=in.position();
+		return new Location()
+		{
+			public int getLineNumber(){ return -1;}
+			public int getColumnNumber(){ return -1;}
+			public int getCharacterOffset(){ return offset;}
+			public String getPublicId(){ return null;}
+			public String getSystemId(){ return null;}
+		};
+	}
+	public Object getProperty(String name){ return null;}
+	public String getEncoding(){ return null;}
+	public String getVersion(){ return null;}
+	public boolean isStandalone(){ return false;}
+	public boolean standaloneSet(){ return false;}
+	public String getCharacterEncodingScheme(){ return null;}
+	public String getPITarget(){ return null;}
+	public String getPIData(){ return null;}
+	public void close(){}
+}
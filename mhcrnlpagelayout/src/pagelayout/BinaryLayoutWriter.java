@@ -0,0 +1,215 @@
+/*
+	------------------------------------------------
+	BinaryLayoutWriter.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.io.*;
+import java.util.*;
+/**
+	Writes a bundle of layouts in the compact binary form read by
+	{@link pagelayout.BinaryLayoutBundle BinaryLayoutBundle}. Each
+	layout is recorded by passing the top level cell to its
+	{@link pagelayout.Cell#xmlserialize xmlserialize} method, so that
+	the bundle holds the same elements and attributes as the XML 
+	documents written by the cells, with the following encoding:
+	the integer attributes (alignments, spans, gaps, etc.) are stored 
+	as variable length integers, and the names of the elements and
+	attributes, as well as the string attributes (names of the cells,
+	classes of the components, etc.), are stored once in a string 
+	table shared by all the layouts of the bundle and referred to by
+	their indices.
+
+	<p>
+	The bundle consists of a header, the string table, a directory
+	of the layouts, and the encoded layouts.
+	</p>
+**/
+public class BinaryLayoutWriter
+{
+	final static int MAGIC=0x504c4231;
+	final static int END_ELEMENT=0;
+	final static int BEGIN_ELEMENT=1;
+	final static int STRING_ATTRIBUTE=2;
+	final static int INT_ATTRIBUTE=3;
+	final static int DOUBLE_ATTRIBUTE=4;
+	final static int BOOLEAN_ATTRIBUTE=5;
+	private ComponentXMLSerializer serializer;
+	private HashMap<String,Integer> stringIndex;
+	private Vector<String> strings;
+	private Vector<String> formNames;
+	private Vector<byte[]> forms;
+/**
+	Creates a writer which uses the specified serializer to write
+	the components.
+
+	@param serializer the serializer of the components.
+**/
+	public BinaryLayoutWriter(ComponentXMLSerializer serializer)
+	{
+		this.serializer=serializer;
+		stringIndex=new HashMap<String,Integer>();
+		strings=new Vector<String>();
+		formNames=new Vector<String>();
+		forms=new Vector<byte[]>();
+	}
+/**
+	Creates a writer which uses 
+	{@link pagelayout.ComponentXMLSerializerImpl 
+	ComponentXMLSerializerImpl} to write the components.
+**/
+	public BinaryLayoutWriter()
+	{
+		this(new ComponentXMLSerializerImpl());
+	}
+/**
+	Adds a layout to the bundle.
+
+	@param name the name by which the layout is retrieved from the
+		bundle.
+	@param cell the top level cell of the layout.
+**/
+	public void add(String name, Cell cell)
+	{
+		EventStream out=new EventStream();
+		cell.xmlserialize(out,serializer);
+		intern(name);
+		formNames.add(name);
+		forms.add(out.toByteArray());
+	}
+/**
+	Writes the bundle of the layouts added so far to a file.
+
+	@param file the file.
+**/
+	public void write(File file) throws IOException
+	{
+		OutputStream out=new BufferedOutputStream(
+				new FileOutputStream(file));
+		try
+		{
+			write(out);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+/**
+	Writes the bundle of the layouts added so far to a stream.
+
+	@param stream the stream.
+**/
+	public void write(OutputStream stream) throws IOException
+	{
+		DataOutputStream out=new DataOutputStream(stream);
+		out.writeInt(MAGIC);
+		int n=strings.size();
+		writeVarint(out,n);
+		for(int i=0;i<n;i++)
+		{
+			byte[] b=strings.elementAt(i).getBytes("UTF-8");
+			writeVarint(out,b.length);
+			out.write(b);
+		}
+		n=forms.size();
+		writeVarint(out,n);
+		for(int i=0;i<n;i++)
+		{
+			writeVarint(out,intern(formNames.elementAt(i)));
+			writeVarint(out,forms.elementAt(i).length);
+		}
+		for(int i=0;i<n;i++)out.write(forms.elementAt(i));
+		out.flush();
+	}
+	private int intern(String s)
+	{
+		if(s==null)return 0;
+		Integer index=stringIndex.get(s);
+		if(index==null)
+		{
+			strings.add(s);
+			index=Integer.valueOf(strings.size());
+			stringIndex.put(s,index);
+		}
+		return index.intValue();
+	}
+	private static void writeVarint(OutputStream out, int value) 
+		throws IOException
+	{
+		while((value&~0x7f)!=0)
+		{
+			out.write((value&0x7f)|0x80);
+			value>>>=7;
+		}
+		out.write(value);
+	}
+	private class EventStream extends ByteArrayOutputStream 
+		implements XMLPrintStream
+	{
+		private void writeIndex(int value) 
+		{
+			try
+			{
+				writeVarint(this,value);
+			}
+			catch(IOException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+		public void beginElement(String element)
+		{
+			write(BEGIN_ELEMENT);
+			writeIndex(intern(element));
+		}
+		public void endElement(String element)
+		{
+			write(END_ELEMENT);
+		}
+		public void beginChildrenList(String element)
+		{
+		}
+		public void endChildrenList(String element)
+		{
+		}
+		public void addAttribute(String name, String value)
+		{
+			write(STRING_ATTRIBUTE);
+			writeIndex(intern(name));
+			writeIndex(intern(value));
+		}
+		public void addAttribute(String name, int value)
+		{
+			write(INT_ATTRIBUTE);
+			writeIndex(intern(name));
+			writeIndex((value<<1)^(value>>31));
+		}
+		public void addAttribute(String name, double value)
+		{
+			write(DOUBLE_ATTRIBUTE);
+			writeIndex(intern(name));
+			long bits=Double.doubleToLongBits(value);
+			for(int i=56;i>=0;i-=8)write((int)(bits>>>i));
+		}
+		public void addAttribute(String name, boolean value)
+		{
+			write(BOOLEAN_ATTRIBUTE);
+			writeIndex(intern(name));
+			write(value?1:0);
+		}
+		public void newAttributeLine()
+		{
+		}
+	}
+}
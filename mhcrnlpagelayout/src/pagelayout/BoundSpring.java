@@ -97,6 +97,30 @@ public class BoundSpring
 		}
 		checkBounds();
 	}
+/**
+	Creates a <code>BoundSpring</code> with the given dimensions. It is
+	used by the {@link pagelayout.SpringEngine SpringEngine} to 
+	store the spring that it has computed for a cell.
+
+	@param wMin the minimum width.
+	@param wPref the preferred width.
+	@param wMax the maximum width.
+	@param hMin the minimum height.
+	@param hPref the preferred height.
+	@param hMax the maximum height.
+	@param isGap <code>true</code> if the spring is that of a gap.
+**/
+	BoundSpring(int wMin, int wPref, int wMax,
+			int hMin, int hPref, int hMax, boolean isGap)
+	{
+		this.wMin=wMin;
+		this.wPref=wPref;
+		this.wMax=wMax;
+		this.hMin=hMin;
+		this.hPref=hPref;
+		this.hMax=hMax;
+		this.isGap=isGap;
+	}
 /**
 	Creates a <code>BoundSpring</code>  which is an exact copy of the given <code>BoundSpring</code>.
 
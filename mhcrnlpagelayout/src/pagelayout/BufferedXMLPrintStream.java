@@ -0,0 +1,329 @@
+/*
+	------------------------------------------------
+	BufferedXMLPrintStream.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.io.*;
+import java.math.*;
+/**
+	An {@link pagelayout.XMLPrintStream XMLPrintStream} which writes to
+	a <code>Writer</code> through a buffer of its own. The values are
+	formatted without <code>printf</code>, the indentation strings are
+	shared, and the attribute values are escaped, so that, e.g., the 
+	names of cells with quotes in them do not corrupt the document.
+
+	<p>
+	By default, the output is the same as that of 
+	{@link pagelayout.XMLPrintStreamImpl XMLPrintStreamImpl}, except
+	for the formatting of the <code>double</code> attributes, which 
+	does not depend on the default locale. In the 
+	compact mode, the elements are written without indentation or
+	line breaks.
+	</p>
+
+	The output is not complete until 
+	{@link pagelayout.BufferedXMLPrintStream#flush flush} or
+	{@link pagelayout.BufferedXMLPrintStream#close close} is called.
+	As with a <code>PrintStream</code>, the errors of the underlying
+	writer are not thrown, but can be detected with
+	{@link pagelayout.BufferedXMLPrintStream#checkError checkError}.
+**/
+public class BufferedXMLPrintStream implements XMLPrintStream
+{
+	private final static  int CLEAR=0;
+	private final static  int ELEMENTBEGAN=1;
+	private final static  int CHILDRENBEGAN=2;
+	private final static  int CHILDRENDUMPED=3;
+	private final static  int SPACE=2;
+	private final static String NEWLINE=System.getProperty(
+			"line.separator");
+	private static char[] spaces=new char[64];
+	static
+	{
+		java.util.Arrays.fill(spaces,' ');
+	}
+	private Writer out;
+	private char[] buffer;
+	private int count;
+	private boolean compact;
+	private int state;
+	private int indent;
+	private boolean error;
+	private char[] digits=new char[11];
+/**
+	Creates a stream which writes indented output to a writer.
+
+	@param out the writer.
+**/
+	public BufferedXMLPrintStream(Writer out)
+	{
+		this(out,false);
+	}
+/**
+	Creates a stream which writes to a writer.
+
+	@param out the writer.
+	@param compact if <code>true</code>, no indentation or line breaks
+		are written.
+**/
+	public BufferedXMLPrintStream(Writer out, boolean compact)
+	{
+		this.out=out;
+		this.compact=compact;
+		buffer=new char[8192];
+		count=0;
+		indent=0;
+		state=CLEAR;
+	}
+/**
+	Creates a stream which writes indented output, encoded as UTF-8,
+	to a byte stream.
+
+	@param out the byte stream.
+**/
+	public BufferedXMLPrintStream(OutputStream out)
+	{
+		this(new OutputStreamWriter(out,
+			java.nio.charset.Charset.forName("UTF-8")),false);
+	}
+	public void beginElement(String element)
+	{
+		beginElementLine();
+		append('<');
+		append(element);
+		state=ELEMENTBEGAN;
+	}
+	public void endElement(String element)
+	{
+		beginElementLine();
+		if(state==CHILDRENDUMPED)
+		{
+			append("</");
+			append(element);
+			append('>');
+			newLine();
+		}
+		else if(state==ELEMENTBEGAN)
+		{
+			append(compact?"/>":" />");
+			newLine();
+		}
+		state=CLEAR;
+	}
+	public void addAttribute(String name, String value)
+	{
+		beginAttribute(name);
+		if(value==null)append("null");
+		else appendEscaped(value);
+		endAttribute();
+	}
+	public void addAttribute(String name, int value)
+	{
+		beginAttribute(name);
+		appendInt(value);
+		endAttribute();
+	}
+	public void addAttribute(String name, double value)
+	{
+		beginAttribute(name);
+		if(Double.isNaN(value)||Double.isInfinite(value))
+			append(Double.toString(value));
+		else append(new BigDecimal(value).setScale(6,
+				RoundingMode.HALF_UP).toPlainString());
+		endAttribute();
+	}
+	public void addAttribute(String name, boolean value)
+	{
+		beginAttribute(name);
+		append(value?"true":"false");
+		endAttribute();
+	}
+	public void beginChildrenList(String element)
+	{
+		append('>');
+		newLine();
+		indent+=SPACE;
+		state=CHILDRENBEGAN;
+	}
+	public void endChildrenList(String element)
+	{
+		indent-=SPACE;
+		state=CHILDRENDUMPED;
+	}
+	public void newAttributeLine()
+	{
+		if(compact)return;
+		append(NEWLINE);
+		beginElementLine();
+		appendSpaces(8);
+	}
+/**
+	Writes the buffered output to the writer, and flushes the writer.
+**/
+	public void flush()
+	{
+		try
+		{
+			flushBuffer();
+			out.flush();
+		}
+		catch(IOException e)
+		{
+			error=true;
+		}
+	}
+/**
+	Writes the buffered output to the writer, and closes the writer.
+**/
+	public void close()
+	{
+		try
+		{
+			flushBuffer();
+			out.close();
+		}
+		catch(IOException e)
+		{
+			error=true;
+		}
+	}
+/**
+	Flushes the stream and checks its error state.
+
+	@return <code>true</code> if the writer has thrown an 
+		<code>IOException</code>.
+**/
+	public boolean checkError()
+	{
+		flush();
+		return error;
+	}
+	private void beginAttribute(String name)
+	{
+		append(' ');
+		append(name);
+		append(compact?"=\"":" = \"");
+	}
+	private void endAttribute()
+	{
+		append('"');
+		if(!compact)append(' ');
+	}
+	private void beginElementLine()
+	{
+		if(!compact)appendSpaces(indent);
+	}
+	private void newLine()
+	{
+		if(!compact)append(NEWLINE);
+	}
+	private void appendSpaces(int n)
+	{
+		if(n<=0)return;
+		char[] s=spaces;
+		if(n>s.length)
+		{
+			s=new char[2*n];
+			java.util.Arrays.fill(s,' ');
+			spaces=s;
+		}
+		append(s,n);
+	}
+	private void appendEscaped(String s)
+	{
+		int n=s.length();
+		int start=0;
+		for(int i=0;i<n;i++)
+		{
+			String e=XMLEscaper.reference(s.charAt(i));
+			if(e==null)continue;
+			append(s,start,i);
+			append(e);
+			start=i+1;
+		}
+		append(s,start,n);
+	}
+	private void appendInt(int value)
+	{
+		if(value==Integer.MIN_VALUE)
+		{
+			append(Integer.toString(value));
+			return;
+		}
+		if(value<0)
+		{
+			append('-');
+			value=-value;
+		}
+		int p=digits.length;
+		do
+		{
+			digits[--p]=(char)('0'+value%10);
+			value/=10;
+		}
+		while(value!=0);
+		for(;p<digits.length;p++)append(digits[p]);
+	}
+	private void append(char c)
+	{
+		if(count==buffer.length)flushBufferUnchecked();
+		buffer[count++]=c;
+	}
+	private void append(String s)
+	{
+		append(s,0,s.length());
+	}
+	private void append(String s, int start, int end)
+	{
+		while(start<end)
+		{
+			if(count==buffer.length)flushBufferUnchecked();
+			int n=end-start;
+			if(n>buffer.length-count)n=buffer.length-count;
+			s.getChars(start,start+n,buffer,count);
+			count+=n;
+			start+=n;
+		}
+	}
+	private void append(char[] s, int n)
+	{
+		int start=0;
+		while(start<n)
+		{
+			if(count==buffer.length)flushBufferUnchecked();
+			int k=n-start;
+			if(k>buffer.length-count)k=buffer.length-count;
+			System.arraycopy(s,start,buffer,count,k);
+			count+=k;
+			start+=k;
+		}
+	}
+	private void flushBufferUnchecked()
+	{
+		try
+		{
+			flushBuffer();
+		}
+		catch(IOException e)
+		{
+			error=true;
+		}
+	}
+	private void flushBuffer() throws IOException
+	{
+		int n=count;
+		count=0;
+		if(n>0)out.write(buffer,0,n);
+	}
+}
@@ -27,6 +27,12 @@ import java.util.*;
 
         For an example, see {@link examples.CardExample CardExample}.
 
+	A card may also be registered with a 
+	{@link pagelayout.CellSupplier CellSupplier}, in which case its 
+	cell is created when the card is first shown. The number of cards 
+	whose components are kept in the container can be limited with 
+	{@link pagelayout.CardCell#setMaxAttachedCards setMaxAttachedCards}.
+
        
 	@version  1.16  05/10/2008
         
@@ -39,6 +45,11 @@ public class CardCell extends Cell
 	private Cell currentCell;
 	private BoundSpring maxBounds;
 	private boolean useMaxbounds;
+	private Hashtable<String,CellSupplier> suppliers;
+	private LinkedHashMap<String,Cell> attached;
+	private int maxAttached;
+	private boolean disposeEvicted;
+	private Container container;
 	/**
 		Creates a <code>CardCell</code> object.
 	**/
@@ -49,6 +60,10 @@ public class CardCell extends Cell
 		currentCell=null;
 		maxBounds=null;
 		useMaxbounds=true;
+		suppliers=new Hashtable<String,CellSupplier>();
+		attached=null;
+		maxAttached=0;
+		disposeEvicted=false;
 	}
 	/**
 		Adds a component to the <code>CardCell</code>. 
@@ -80,16 +95,155 @@ public class CardCell extends Cell
 	**/
 	public void add(String name, Cell cell)
 	{
-		cells.put(name,cell);
+		Cell old=cells.put(name,cell);
+		if((old!=null)&&(old!=cell))indexRemoved(old);
+		cell.setParent(this);
+		invalidatePath();
 		if(currentKey==null)
 		{
 			currentKey=name;
 			currentCell=cell;
 		}
 	}
+	/**
+		Adds a card whose cell is created by the specified supplier
+		when the card is first shown by 
+		{@link pagelayout.CardCell#showCell showCell}, or at once if 
+		it is the first card of this <code>CardCell</code>. Till then,
+		the card does not contribute to the size of this cell.
+
+		@param name the identifier for the card. 
+		@param supplier the supplier of the cell of the card.
+	**/
+	public void add(String name, CellSupplier supplier)
+	{
+		suppliers.put(name,supplier);
+		if(currentKey==null)buildCard(name);
+	}
+	private Cell buildCard(String name)
+	{
+		CellSupplier supplier=suppliers.get(name);
+		if(supplier==null)return null;
+		Cell cell=supplier.get();
+		add(name,cell);
+		return cell;
+	}
+	/**
+		Limits the number of cards whose components are kept in the
+		container. When a card is shown and the limit is exceeded,
+		the components of the least recently shown card are removed 
+		from the container, and added back when the card is shown
+		again.
+
+		@param max the maximum number of attached cards. If it is not
+			positive, the components of all the cards are kept in 
+			the container, which is the default.
+		@param dispose if <code>true</code>, the evicted cards which
+			were added with a {@link pagelayout.CellSupplier
+			CellSupplier} are also discarded, and are created 
+			again by the supplier when they are next shown.
+	**/
+	public void setMaxAttachedCards(int max, boolean dispose)
+	{
+		disposeEvicted=dispose;
+		if(max<=0)
+		{
+			maxAttached=0;
+			if((attached!=null)&&(container!=null))
+			{
+				Enumeration<String> keys=cells.keys();
+				while(keys.hasMoreElements())
+				{
+					String key=keys.nextElement();
+					if(attached.containsKey(key))continue;
+					Cell cell=cells.get(key);
+					cell.addComponentsToContainer(container);
+					cell.setVisible(false);
+				}
+			}
+			attached=null;
+			return;
+		}
+		maxAttached=max;
+		if(attached==null)
+		{
+			attached=new LinkedHashMap<String,Cell>(16,0.75f,true);
+			if(container!=null)
+			{
+				Enumeration<String> keys=cells.keys();
+				while(keys.hasMoreElements())
+				{
+					String key=keys.nextElement();
+					if(!key.equals(currentKey))
+						attached.put(key,cells.get(key));
+				}
+				if(currentCell!=null)
+					attached.put(currentKey,currentCell);
+			}
+		}
+		evictCards();
+	}
+	private void evictCards()
+	{
+		if(attached==null)return;
+		Iterator<Map.Entry<String,Cell>> it=attached.entrySet().iterator();
+		while((attached.size()>maxAttached)&&it.hasNext())
+		{
+			Map.Entry<String,Cell> entry=it.next();
+			String key=entry.getKey();
+			if(key.equals(currentKey))continue;
+			it.remove();
+			Cell cell=entry.getValue();
+			if(container!=null)cell.removeAllComponents(container);
+			if(disposeEvicted&&suppliers.containsKey(key))
+			{
+				indexRemoved(cell);
+				cells.remove(key);
+				cell.setParent(null);
+				invalidatePath();
+			}
+		}
+	}
+/**
+	Creates the cells of all the cards which were added with a 
+	{@link pagelayout.CellSupplier CellSupplier} and have not been 
+	created yet, or have been discarded.
+**/
+	public void buildAllCards()
+	{
+		Enumeration<String> keys=suppliers.keys();
+		while(keys.hasMoreElements())
+		{
+			String key=keys.nextElement();
+			if(cells.containsKey(key))continue;
+			Cell cell=buildCard(key);
+			if((attached==null)&&(container!=null))
+			{
+				cell.addComponentsToContainer(container);
+				cell.setVisible(false);
+			}
+		}
+	}
+/**
+	Returns <code>true</code> if the cell of the card with the 
+	specified name has been created and its components are in the
+	container.
+
+	@param name the name of the card.
+**/
+	public boolean isCardAttached(String name)
+	{
+		if(!cells.containsKey(name))return false;
+		if(attached==null)return true;
+		return attached.containsKey(name)||name.equals(currentKey);
+	}
 /**
 	Computes the two-dimensional spring associated with the currently 
-	visible cell or component.
+	visible cell or component, or the spring enclosing the springs of
+	all the cells if {@link pagelayout.CardCell#setUseMaxbounds 
+	setUseMaxbounds} is in effect. The cached springs of the cells are
+	used, so that only the cells whose springs have been invalidated 
+	are measured again.
 
 	@return The computed two-dimensional spring.
 **/
@@ -101,15 +255,58 @@ public class CardCell extends Cell
 			return maxBounds;
 		}
 		if(currentCell==null)return (new Gap(0)).computeBoundSpring();
-		return currentCell.computeBoundSpring();
+		return new BoundSpring(currentCell.getBoundSpring());
 	}
+/**
+	Invalidates the spring of this cell and the springs in the trees of
+	all its cells, including the hidden ones, whose springs would
+	otherwise be folded into the bounds of the cell while stale. When
+	only the contents of a hidden cell change, 
+	{@link pagelayout.CardCell#invalidateChangedComponents 
+	invalidateChangedComponents} invalidates just the springs on their
+	path.
+**/
 	public void invalidate()
 	{
 		super.invalidate();
 		maxBounds=null;
 		Enumeration<Cell> e=cells.elements();
 		while(e.hasMoreElements())
-			e.nextElement().invalidate();
+		{
+			Cell cell=e.nextElement();
+			if(cell!=currentCell)cell.invalidate();
+		}
+	}
+/**
+	Calls the {@link pagelayout.Cell#invalidateChangedComponents
+	invalidateChangedComponents} method of each cell within the card, 
+	including the hidden ones, so that a change in the size of a 
+	component of a hidden cell invalidates the springs on its path.
+
+	@return <code>true</code> if at least one changed component was found.
+**/
+	protected boolean invalidateChangedComponents()
+	{
+		boolean found=false;
+		Enumeration<Cell> e=cells.elements();
+		while(e.hasMoreElements())
+			if(e.nextElement().invalidateChangedComponents())found=true;
+		return found;
+	}
+	boolean invalidateResizedComponents()
+	{
+		boolean found=false;
+		Enumeration<Cell> e=cells.elements();
+		while(e.hasMoreElements())
+			if(e.nextElement().invalidateResizedComponents())found=true;
+		return found;
+	}
+	void setLayoutMetrics(LayoutMetrics metrics)
+	{
+		super.setLayoutMetrics(metrics);
+		Enumeration<Cell> e=cells.elements();
+		while(e.hasMoreElements())
+			e.nextElement().setLayoutMetrics(metrics);
 	}
 	/**
 		There are two options for laying out the components in the
@@ -131,17 +328,19 @@ public class CardCell extends Cell
 	public void setUseMaxbounds(boolean flag)
 	{
 		useMaxbounds=flag;
+		invalidatePath();
 	}
 	private void computeMaxBounds()
 	{
 		Enumeration<Cell> e=cells.elements();
-		BoundSpring bs;
-		if(e.hasMoreElements())
-			bs=e.nextElement().computeBoundSpring();
-		else bs=(new Gap(0)).computeBoundSpring();
+		BoundSpring bs=null;
 		while(e.hasMoreElements())
-			bs.encloseBoundSpring(
-				e.nextElement().computeBoundSpring());
+		{
+			BoundSpring s=e.nextElement().getBoundSpring();
+			if(bs==null)bs=new BoundSpring(s);
+			else bs.encloseBoundSpring(s);
+		}
+		if(bs==null)bs=(new Gap(0)).computeBoundSpring();
 		maxBounds=bs;
 	}
 /**
@@ -156,6 +355,19 @@ public class CardCell extends Cell
 
 	public void addComponentsToContainer(Container parent)
 	{	
+		container=parent;
+		if(attached!=null)
+		{
+			if(currentCell!=null)attached.put(currentKey,currentCell);
+			Iterator<Cell> it=attached.values().iterator();
+			while(it.hasNext())
+			{
+				Cell cell=it.next();
+				cell.addComponentsToContainer(parent);
+				cell.setVisible(cell==currentCell);
+			}
+			return;
+		}
 		Enumeration<String> keys=cells.keys();
 		while(keys.hasMoreElements())
 		{
@@ -202,6 +414,7 @@ public class CardCell extends Cell
 			Container p=cell.removeAllComponents(parent);
 			if(c==null)c=p;
 		}
+		if(attached!=null)attached.clear();
 		return c;
 	}
 /**
@@ -226,6 +439,7 @@ public class CardCell extends Cell
 **/
 	public Component getComponent()
 	{
+		if(currentCell==null)return null;
 		return currentCell.getComponent();
 	}
 	public Cell duplicate(ComponentDuplicator c)
@@ -240,6 +454,14 @@ public class CardCell extends Cell
 			cell=cell.duplicate(c);
 			card.add(key,cell);
 		}
+		Enumeration<String> lazy=suppliers.keys();
+		while(lazy.hasMoreElements())
+		{
+			String key=lazy.nextElement();
+			if(!cells.containsKey(key))
+				card.add(key,suppliers.get(key));
+		}
+		card.setMaxAttachedCards(maxAttached,disposeEvicted);
 		return card;
 	}
 	public void xmlserialize(XMLPrintStream out, ComponentXMLSerializer c)
@@ -250,6 +472,7 @@ public class CardCell extends Cell
 	  	out.addAttribute("TypeName",cname);
 		out.addAttribute("name",getName());
 		out.beginChildrenList(element);
+		buildAllCards();
 		Enumeration<String> keys=cells.keys();
 		while(keys.hasMoreElements())
 		{
@@ -257,7 +480,9 @@ public class CardCell extends Cell
 			Cell cell=cells.get(key);
 			out.beginElement("KeyCellPair");
 			out.addAttribute("Key",key);
+			out.beginChildrenList("KeyCellPair");
 			out.beginElement("Cell");
+			out.beginChildrenList("Cell");
 			cell.xmlserialize(out,c);
 		  	out.endChildrenList("Cell");
 		  	out.endElement("Cell");
@@ -268,6 +493,35 @@ public class CardCell extends Cell
 		out.endChildrenList(element);
 		out.endElement(element);
 	}
+/**
+	Returns all the cells that have been added to this 
+	<code>CardCell</code>, including the ones that are not visible.
+
+	@return The cells of this <code>CardCell</code>.
+**/
+	protected Collection<Cell> getCards()
+	{
+		return cells.values();
+	}
+	void copyTemplateState(Cell copy)
+	{
+		CardCell card=(CardCell)copy;
+		card.useMaxbounds=useMaxbounds;
+		Enumeration<String> keys=cells.keys();
+		while(keys.hasMoreElements())
+		{
+			String key=keys.nextElement();
+			Cell c=card.cells.get(key);
+			if(c!=null)cells.get(key).copyTemplateState(c);
+		}
+		Cell current=(currentKey==null?null:card.cells.get(currentKey));
+		if(current!=null)
+		{
+			card.currentKey=currentKey;
+			card.currentCell=current;
+		}
+		super.copyTemplateState(copy);
+	}
 /**
 	Returns <code>1</code>, since only one cell is visible at any time.
 
@@ -292,23 +546,29 @@ public class CardCell extends Cell
 **/
 	public void showCell(String name)
 	{
-		if(!cells.containsKey(name))return;
 		if(name.equals(currentKey))return;
 		Cell cell=cells.get(name);
+		boolean built=false;
+		if(cell==null)
+		{
+			cell=buildCard(name);
+			built=true;
+		}
 		if(cell==null)return;
 		if(currentCell!=null)currentCell.setVisible(false);
+		if((container!=null)&&(built||((attached!=null)&&
+				!attached.containsKey(name))))
+			cell.addComponentsToContainer(container);
+		if(attached!=null)attached.put(name,cell);
 		cell.setVisible(true);
 		currentKey=name;
 		currentCell=cell;
+		evictCards();
 		Cell root=getRootCell();
-		root.invalidate();
-		invalidate();
+		invalidatePath();
 		Container c=root.getContainer();
-		if(c!=null)
-		{
-			c.validate();
-			c.repaint();
-		}
+		if(c==null)c=container;
+		if(c!=null)validateContainer(c);
 	}
 	public void setComponentGaps(int hgap,int vgap)
 	{
@@ -319,6 +579,6 @@ public class CardCell extends Cell
 			Cell c=cells.get(key);
 			c.setComponentGaps(hgap,vgap);
 		}
-		invalidate();
+		invalidatePath();
 	}
 }
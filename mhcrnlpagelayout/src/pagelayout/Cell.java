@@ -158,6 +158,13 @@ public abstract class Cell
 	protected int filledSizeX, filledSizeY;
 	protected boolean fixMaxSize;
 	protected Vector<PageLayout.ContainerSizeLink> links;
+	private CellIndex index;
+	private SizeSnapshot sizeSnapshot;
+	private LayoutMetrics metrics;
+	int subtreeDepth;
+	private UpdateBatch updateBatch;
+	int boundsEpoch;
+	boolean templateInstance;
 /**
 	Creates a cell object. Since this class is abstract, it can be called
 	only by the classes that extend it.
@@ -176,7 +183,12 @@ public abstract class Cell
 	}
         protected void setParent(Cell cell)
 	{
+		if(parent==cell)return;
 		parent=cell;
+		index=null;
+		if(cell!=null)cell.indexAdded(this);
+		LayoutMetrics m=(cell==null?null:cell.metrics);
+		if(m!=metrics)setLayoutMetrics(m);
 	}
         public Cell getParent()
 	{
@@ -292,6 +304,26 @@ public abstract class Cell
 		}
 		setBounds(x,y,wd,hd);
 	}
+/**
+	Lays out the tree of cells with this cell as the root within the
+	specified rectangle. Unlike the layout done by the 
+	{@link pagelayout.PageLayout PageLayout}, this method does not need
+	a container, and it can be used to lay out trees of 
+	{@link pagelayout.MeasurableCell MeasurableCell} objects, which
+	report the computed rectangles to a
+	{@link pagelayout.LayoutSink LayoutSink} instead of resizing 
+	components. The springs of the cells are recomputed only if the
+	tree has been invalidated since the last layout.
+
+	@param x the x-coordinate of the top left of the rectangle.
+	@param y the y-coordinate of the top left of the rectangle.
+	@param width the width of the rectangle.
+	@param height the height of the rectangle.
+**/
+	public void layoutTree(int x, int y, int width, int height)
+	{
+		layout(x,y,width,height);
+	}
 /**
 	Specifies an identifier for the cell. If each cell is given a unique
 	name, the identifier may be used to extract the associated cell by
@@ -303,7 +335,10 @@ public abstract class Cell
 	
 	public void setName(String name)
 	{
+		String oldName=this.name;
 		this.name=name;
+		Cell root=getRootCell();
+		if(root.index!=null)root.index.rename(this,oldName);
 	}
 /**
 	Returns the name of the cell if it has been given one, otherwise <code>null</code>.
@@ -335,12 +370,7 @@ public abstract class Cell
 		Component c=getComponent();
 		if(c!=null)
 		{
-			Container old=c.getParent();
-			if(old!=container)
-			{
-				if(old!=null)old.remove(c);
-				container.add(c);
-			}
+			addToContainer(c,container);
 		}
 		int n=numberOfChildren();
 		for(int i=0;i<n;i++)
@@ -384,15 +414,24 @@ public abstract class Cell
 **/
 	public BoundSpring getBoundSpring()
 	{
-		if(boundSpring==null)
-		{
-			boundSpring=computeBoundSpring();
-			if(wFixed)boundSpring.setFixedWidth();
-			if(hFixed)boundSpring.setFixedHeight();
-		}
+		if(boundSpring==null)setBoundSpring(computeBoundSpring());
 		if(fixMaxSize)boundSpring.fixMax();
 		return boundSpring;
 	}
+/**
+	Sets the two-dimensional spring associated with the cell to a
+	spring that has been computed for it, and applies the fixed size
+	constraints of the cell to the spring.
+
+	@param spring the computed two-dimensional spring.
+**/
+	void setBoundSpring(BoundSpring spring)
+	{
+		if(metrics!=null)metrics.springComputed(this);
+		boundSpring=spring;
+		if(wFixed)boundSpring.setFixedWidth();
+		if(hFixed)boundSpring.setFixedHeight();
+	}
 /**
 	Invalidates the tree formed with this cell as the root. This should
 	be called whenever any cell in the root has been replaced or removed
@@ -410,6 +449,99 @@ public abstract class Cell
 		}
 		
 	}
+/**
+	Invalidates the two-dimensional spring of this cell and of each of
+	its ancestors, but not of its descendants. This should be called
+	instead of {@link pagelayout.Cell#invalidate invalidate} when a
+	change affects only this cell (e.g. the size of the component it 
+	wraps has changed, or one of its children has been replaced),
+	so that the cached springs of the rest of the tree are reused 
+	when the spring of the top level cell is recomputed.
+**/
+	public void invalidatePath()
+	{
+		for(Cell p=this;p!=null;p=p.getParent())
+			p.boundSpring=null;
+	}
+/**
+	Copies to a duplicate of this cell, created by 
+	{@link pagelayout.Cell#duplicate duplicate}, the state which is
+	not copied by <code>duplicate</code>, i.e. the name, the fixed 
+	size flags and the alignments of this cell, and then does the same
+	for each pair of corresponding children. Used by
+	{@link pagelayout.LayoutTemplate LayoutTemplate}, whose 
+	subclasses of <code>Cell</code> which measure components also copy
+	their measured springs.
+
+	@param copy the duplicate of this cell.
+**/
+	void copyTemplateState(Cell copy)
+	{
+		if(name!=null)copy.setName(name);
+		copy.wFixed=wFixed;
+		copy.hFixed=hFixed;
+		copy.fixMaxSize=fixMaxSize;
+		copy.halign=halign;
+		copy.valign=valign;
+		int n=numberOfChildren();
+		if(copy.numberOfChildren()!=n)return;
+		for(int i=0;i<n;i++)
+		{
+			Cell cell=getChildAt(i);
+			Cell c=copy.getChildAt(i);
+			if((cell!=null)&&(c!=null))cell.copyTemplateState(c);
+		}
+	}
+/**
+	Traverses the tree of cells formed with this cell as the root, and
+	calls {@link pagelayout.Cell#invalidatePath invalidatePath} for 
+	each cell whose component has been invalidated since
+	its container was last validated.
+
+	@return <code>true</code> if at least one such cell was found.
+**/
+	protected boolean invalidateChangedComponents()
+	{
+		boolean found=false;
+		Component c=getComponent();
+		if((c!=null)&&!c.isValid())
+		{
+			invalidatePath();
+			found=true;
+		}
+		int n=numberOfChildren();
+		for(int i=0;i<n;i++)
+		{
+			Cell cell=getChildAt(i);
+			if(cell==null)continue;
+			if(cell.invalidateChangedComponents())found=true;
+		}
+		return found;
+	}
+/**
+	Traverses the tree of cells formed with this cell as the root, and
+	calls {@link pagelayout.Cell#invalidatePath invalidatePath} for 
+	each cell whose component no longer has the preferred size at which
+	its spring was measured. This is used instead of 
+	{@link pagelayout.Cell#invalidateChangedComponents 
+	invalidateChangedComponents} for a copy made by a 
+	{@link pagelayout.LayoutTemplate LayoutTemplate}, whose components
+	have not been validated yet.
+
+	@return <code>true</code> if at least one such cell was found.
+**/
+	boolean invalidateResizedComponents()
+	{
+		boolean found=false;
+		int n=numberOfChildren();
+		for(int i=0;i<n;i++)
+		{
+			Cell cell=getChildAt(i);
+			if(cell==null)continue;
+			if(cell.invalidateResizedComponents())found=true;
+		}
+		return found;
+	}
 /**
 	Should be over-ridden by sub-classes that contain child-cells to
 	return the child associated with the given index, or <code>null</code> if
@@ -451,6 +583,16 @@ public abstract class Cell
 
 **/
 	public Cell getCellByName(String name)
+	{
+		String thisName=getName();
+		if((thisName!=null)&&(thisName.equals(name)))return this;
+		CellIndex index=getCellIndex();
+		Cell match=index.getCellByName(name);
+		if(match==null)return null;
+		if(index.isUniqueName(name)&&encloses(match))return match;
+		return searchCellByName(name);
+	}
+	private Cell searchCellByName(String name)
 	{
 		String thisName=getName();
 		if((thisName!=null)&&(thisName.equals(name)))return this;
@@ -459,7 +601,7 @@ public abstract class Cell
 		{
 			Cell child=getChildAt(i);
 			if(child==null)continue;
-			Cell match=child.getCellByName(name);
+			Cell match=child.searchCellByName(name);
 			if(match!=null)return match;
 		}	
 		return null;
@@ -489,34 +631,168 @@ public abstract class Cell
 **/
 	public ComponentCell getComponentCell(Component component)
 	{
-		return getComponentCell(component,(Cell[])null);
+		if(component==null)return null;
+		ComponentCell cell=getCellIndex().getComponentCell(component);
+		if((cell==null)||!encloses(cell))return null;
+		return cell;
 	}
-	private ComponentCell getComponentCell(
-		Component component, Cell[] parentHolder)
+/**
+	Returns the index of the components and the names of the cells 
+	of the tree to which this cell belongs. The index is kept by
+	the top level cell of the tree, and is created when it is 
+	first needed.
+
+	@return The index of the tree of cells.
+**/
+	protected CellIndex getCellIndex()
 	{
-		if(component==null)return null;
-		if(isComponentCell())
-		{
-			if(component==getComponent())
-				return (ComponentCell)this;
-		}
+		Cell root=getRootCell();
+		if(root.index==null)root.index=new CellIndex(root);
+		return root.index;
+	}
+/**
+	Returns the snapshot of the sizes of the components of the tree 
+	to which this cell belongs. The snapshot is set by the 
+	{@link pagelayout.PageLayout PageLayout} on the top level cell.
+
+	@return The snapshot, or <code>null</code> if the sizes of the 
+	components are not being recorded.
+**/
+	SizeSnapshot getSizeSnapshot()
+	{
+		return getRootCell().sizeSnapshot;
+	}
+	void setSizeSnapshot(SizeSnapshot snapshot)
+	{
+		sizeSnapshot=snapshot;
+	}
+/**
+	Sets the object which collects the metrics of the layouts on this
+	cell and on the cells in its tree, so that each cell finds it 
+	without walking to the top level cell when its spring is computed.
+	The cells which are added to the tree later get it from their 
+	parents.
+
+	@param metrics the metrics, or <code>null</code>.
+**/
+	void setLayoutMetrics(LayoutMetrics metrics)
+	{
+		this.metrics=metrics;
 		int n=numberOfChildren();
 		for(int i=0;i<n;i++)
 		{
-			Cell child=getChildAt(i);
-			if(child==null)continue;
-			if((child instanceof ComponentCell)&&
-				(child.getComponent()==component))
-			{
-				if(parentHolder!=null)
-					parentHolder[0]=this;
-				return (ComponentCell)child;
-			}
-			ComponentCell match=child.getComponentCell(component,
-						parentHolder);
-			if(match!=null)return match;
-		}	
-		return null;
+			Cell cell=getChildAt(i);
+			if(cell!=null)cell.setLayoutMetrics(metrics);
+		}
+	}
+/**
+	Returns the batch of changes which is open on the tree to which 
+	this cell belongs. The batch is set by the 
+	{@link pagelayout.PageLayout#beginUpdate beginUpdate} method of
+	the {@link pagelayout.PageLayout PageLayout} on the top level cell.
+
+	@return The open batch, or <code>null</code> if the changes to the
+	tree are being applied immediately.
+**/
+	UpdateBatch getUpdateBatch()
+	{
+		return getRootCell().updateBatch;
+	}
+	void setUpdateBatch(UpdateBatch batch)
+	{
+		updateBatch=batch;
+	}
+/**
+	Adds a component of this cell to the given container, removing it 
+	from its current container, if any. If a batch of changes is open,
+	the component is added when the batch is closed.
+
+	@param c the component.
+	@param container the container to which the component is added.
+**/
+	protected void addToContainer(Component c, Container container)
+	{
+		UpdateBatch b=getUpdateBatch();
+		if(b!=null)
+		{
+			b.add(c,container);
+			return;
+		}
+		Container old=c.getParent();
+		if(old==container)return;
+		if(old!=null)old.remove(c);
+		container.add(c);
+	}
+/**
+	Removes a component of this cell from the given container. If a
+	batch of changes is open, the component is removed when the batch
+	is closed.
+
+	@param c the component.
+	@param container the container from which the component is removed.
+**/
+	protected void removeFromContainer(Component c, Container container)
+	{
+		UpdateBatch b=getUpdateBatch();
+		if(b!=null)b.remove(c,container);
+		else container.remove(c);
+	}
+/**
+	Returns the container of a component of this cell, taking into 
+	account the changes of the open batch, if any.
+
+	@param c the component.
+	@return The container to which the component belongs, or will 
+	belong when the batch is closed.
+**/
+	protected Container getParentOf(Component c)
+	{
+		UpdateBatch b=getUpdateBatch();
+		return (b==null?c.getParent():b.getParent(c));
+	}
+/**
+	Validates and repaints the given container, or, if a batch of
+	changes is open, when the batch is closed.
+
+	@param container the container to be validated.
+**/
+	protected void validateContainer(Container container)
+	{
+		UpdateBatch b=getUpdateBatch();
+		if(b!=null)b.validate(container);
+		else
+		{
+			container.validate();
+			container.repaint();
+		}
+	}
+/**
+	Adds a cell, which has just been added to the tree to which
+	this cell belongs, to the index of the tree, if the index exists.
+
+	@param cell the cell that has been added.
+**/
+	protected void indexAdded(Cell cell)
+	{
+		Cell root=getRootCell();
+		if(root.index!=null)root.index.add(cell);
+	}
+/**
+	Removes a cell, which is about to be removed from the tree to which
+	this cell belongs, from the index of the tree, if the index exists.
+
+	@param cell the cell that is to be removed.
+**/
+	protected void indexRemoved(Cell cell)
+	{
+		Cell root=getRootCell();
+		if(root.index!=null)root.index.remove(cell);
+	}
+	private boolean encloses(Cell cell)
+	{
+		for(Cell p=cell;p!=null;p=p.getParent())
+			if(p==this)return true;
+		return false;
 	}
 /**
 	Should be over-ridden by sub-classes that contain child-cells to
@@ -559,11 +835,10 @@ public abstract class Cell
 		if(cell==null)return;
 		Container parent=null;
 		int result=replaceCell(cell,null,
-			parent=component.getParent());
-		if(result==FOUND_REPLACED)
+			parent=getParentOf(component));
+		if((result==FOUND_REPLACED)&&(parent!=null))
 		{
-			invalidate();
-			parent.validate();
+			validateContainer(parent);
 		}
 	}
 /**
@@ -673,8 +948,8 @@ public abstract class Cell
 		Component c=getComponent();
 		if(c!=null)
 		{
-			if(parent==null)parent=c.getParent();
-			if(parent!=null) parent.remove(c);
+			if(parent==null)parent=getParentOf(c);
+			if(parent!=null) removeFromContainer(c,parent);
 			return parent;	
 		}
 		int n=numberOfChildren();
@@ -940,9 +1215,9 @@ public abstract class Cell
 				dd[type]=new Dimension(dc);
 			}
 			EasyCell.setDimensions(c[i],dd);
-			
+			getChildAt(index[i]).invalidatePath();
 		}
-		invalidate();
+		invalidatePath();
 		if((numValid==0)||(anchorIndex<0))	
 			return;
 		boolean add= ((coord==0)&& (this instanceof Column));
@@ -1115,6 +1390,25 @@ public abstract class Cell
 	{
 		linkDim(anchor,components,factors,1);
 	}
+/**
+	Returns an array of the given length to be used as a scratch 
+	buffer during layout. The given buffer is returned, with its
+	elements set to zero, if its length is the required length, so that
+	repeated layouts of the same tree of cells do not allocate new
+	arrays.
+
+	@param buffer the buffer used in the previous layout, or 
+	<code>null</code>.
+	@param n the required length.
+
+	@return An array of length <code>n</code> with all elements zero.
+**/
+	protected static int[] getBuffer(int[] buffer, int n)
+	{
+		if((buffer==null)||(buffer.length!=n))return new int[n];
+		for(int i=0;i<n;i++)buffer[i]=0;
+		return buffer;
+	}
 	public static int getDim(Dimension d, int coord)
 	{
 		return (coord==0? d.width:d.height);
@@ -1135,16 +1429,13 @@ public abstract class Cell
 			d=getSize(anchor,i);
 			anchord[i]=getDim(d,coord);	
 		}
-		Cell[] parentHolder=new Cell[1];
 		int m=c.length;
 		int n=(factors==null?0:factors.length);
 		Dimension dd[]=new Dimension[3];
 		for(int i=0;i<m;i++)
 		{
-			Cell cc=getComponentCell(components[i],
-					parentHolder);
+			Cell cc=getComponentCell(components[i]);
 			//if(cc==null)continue;
-			//if(parentHolder[0]==null)continue;
 			for(int type =0;type<3;type++)
 			{
 			       double f =(i<n?factors[i]:1);
@@ -1155,23 +1446,19 @@ public abstract class Cell
 			       dd[type]=d;
 			}
 			EasyCell.setDimensions(c[i],dd);
-			if(cc!=null)cc.invalidate();
-			if(parentHolder[0]!=null)
-				parentHolder[0].invalidate();
+			if(cc!=null)cc.invalidatePath();
 		}
 		if((anchord[0]==anchord[1])&&(anchord[1]==anchord[2]))
 		{
-		  invalidate();
 		  return;
 		}
-		Cell anchorCell=getComponentCell(anchor,parentHolder);
-		if((anchorCell==null)||(parentHolder[0]==null))
+		Cell anchorCell=getComponentCell(anchor);
+		if((anchorCell==null)||(anchorCell.getParent()==null))
 		{
 			return;
 		}
-		parentHolder[0].linkChildDim(anchorCell,
+		anchorCell.getParent().linkChildDim(anchorCell,
 			anchor,components,factors,coord);
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1199,7 +1486,7 @@ public abstract class Cell
 			Dimension dm=component.getMaximumSize();
 			component.setMaximumSize(new Dimension(MAX,dm.height));
 		}
-		invalidate();
+		invalidateComponentPath(component);
 	}
 /**
 	Depending upon the value of the
@@ -1217,7 +1504,6 @@ public abstract class Cell
 	{
 		for(Component component:components)
 			setFixedWidth(component,fixed);
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1234,7 +1520,6 @@ public abstract class Cell
 	{
 		for(Component component:components)
 			setFixedWidth(component,fixed);
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1262,7 +1547,7 @@ public abstract class Cell
 			Dimension dm=component.getMaximumSize();
 			component.setMaximumSize(new Dimension(dm.width,MAX));
 		}
-		invalidate();
+		invalidateComponentPath(component);
 	}
 
 
@@ -1284,7 +1569,6 @@ public abstract class Cell
 	public void setFixedHeight(Component[] components, boolean fixed)
 	{
            for(Component component:components)setFixedHeight(component,fixed);
-	   invalidate();
 	}
 /**
 	<p>
@@ -1301,7 +1585,6 @@ public abstract class Cell
 	public void setFixedHeight(boolean fixed, Component... components)
 	{
            for(Component component:components)setFixedHeight(component,fixed);
-	   invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1321,9 +1604,8 @@ public abstract class Cell
 		for(int i=0;i<n;i++)
 		{
 			cells[i].wFixed=fixed;
-			cells[i].invalidate();
+			cells[i].invalidatePath();
 		}
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1342,9 +1624,8 @@ public abstract class Cell
 		for(int i=0;i<n;i++)
 		{
 			cells[i].wFixed=fixed;
-			cells[i].invalidate();
+			cells[i].invalidatePath();
 		}
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1364,9 +1645,8 @@ public abstract class Cell
 		for(int i=0;i<n;i++)
 		{
 			cells[i].hFixed=fixed;
-			cells[i].invalidate();
+			cells[i].invalidatePath();
 		}
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1386,9 +1666,8 @@ public abstract class Cell
 		for(int i=0;i<n;i++)
 		{
 			cells[i].hFixed=fixed;
-			cells[i].invalidate();
+			cells[i].invalidatePath();
 		}
-		invalidate();
 	}
 /**
 	Depending upon the value of the
@@ -1412,7 +1691,7 @@ public abstract class Cell
 		{
 			component.setMaximumSize(new Dimension(MAX,MAX));
 		}
-		invalidate();
+		invalidateComponentPath(component);
 	}	
 
 /**
@@ -1431,7 +1710,6 @@ public abstract class Cell
 	{
 	   for(Component component: components)
 		setFixedSize(component,fixed);
-	   invalidate();
 	}	
 /**
 	Depending upon the value of the
@@ -1448,8 +1726,13 @@ public abstract class Cell
 	{
 	   for(Component component: components)
 		setFixedSize(component,fixed);
-	   invalidate();
 	}	
+	private void invalidateComponentPath(Component component)
+	{
+		Cell cell=getComponentCell(component);
+		if(cell!=null)cell.invalidatePath();
+		else invalidatePath();
+	}
 /**
 	Returns <code>true</code>
 	 if the height of the component can change if the size of
@@ -1511,7 +1794,7 @@ public abstract class Cell
 			if(c==null)continue;
 			c.setComponentGaps(hgap,vgap);
 		}
-		invalidate();
+		invalidatePath();
 	}
 /**
 	Returns the <i>baseline</i> of a cell. The baseline is defined 
@@ -1638,6 +1921,24 @@ public abstract class Cell
 		baselineClasses.add(JComboBox.class);
 		baselineClasses.add(pagelayout.util.NamedSeparator.class);
 	}
+	private final static ClassValue<Boolean> baselineEligible=
+		new ClassValue<Boolean>()
+	{
+		protected Boolean computeValue(Class<?> type)
+		{
+			for(Class<?> c=type;c!=null;c=c.getSuperclass())
+				if(baselineClasses.contains(c))return Boolean.TRUE;
+			return Boolean.FALSE;
+		}
+	};
+/**
+	Returns <code>true</code> if the components of the given class,
+	or of one of its superclasses, can be aligned along the baseline.
+**/
+	static boolean isBaselineClass(Class<?> type)
+	{
+		return baselineEligible.get(type).booleanValue();
+	}
 	private int selectForBaselineAlignment(ComponentCell cells[], int n )
 	{
 		
@@ -1646,7 +1947,7 @@ public abstract class Cell
 		{
 			ComponentCell cell=cells[i];
 			if(cell==null)continue;
-			if(!baselineClasses.contains(
+			if(!isBaselineClass(
 				cell.getComponent().getClass()))
 				cells[i]=null;
 			else k++;
@@ -324,6 +324,7 @@ public abstract class CellContainer extends Cell
 		if(index<0)return false;
 		Cell child=getChildAt(index);
 		if(child==null)return false;
+		indexRemoved(child);
 		if(parent!=null)
 		{
 			child.removeAllComponents(parent);
@@ -336,6 +337,7 @@ public abstract class CellContainer extends Cell
 			newCell.addComponentsToContainer(parent);
 		}
 		else cells.removeElementAt(index);
+		invalidatePath();
 		return true;
 	}
 	public void changeAlignment(int halign, int valign)
@@ -347,7 +349,7 @@ public abstract class CellContainer extends Cell
 		valignment=valign;
 		halignment=halign;
 		cells.changeAlignment(isRow? halignment:valignment,isRow);
-		invalidate();
+		invalidatePath();
 	}
 	public int getAlignment(int coord, int defaultValue)
 	{
@@ -415,6 +417,8 @@ public abstract class CellContainer extends Cell
 	}
 	public void clear()
 	{
+		int n=cells.size();
+		for(int i=0;i<n;i++)indexRemoved(cells.elementAt(i));
 		cells.clear();
 	}
 }
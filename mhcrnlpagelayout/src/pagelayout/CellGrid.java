@@ -17,6 +17,7 @@
 */
 package pagelayout;
 import java.awt.*;
+import java.util.Arrays;
 import static java.lang.Math.*;
 
 /**
@@ -97,11 +98,25 @@ public class CellGrid extends Cell
 	private BoundSpring rowSprings[];
 	private BoundSpring colSprings[];
 	private int[][][] alignments;
-	protected byte[][] vspan, hspan;
+	protected int[][] vspan, hspan;
 	private boolean fixedRowHeight[], fixedColumnWidth[];
 	protected boolean[][] draw;
 	protected int colWidths[];
 	protected int rowHeights[];
+	private final SpaceDistributor distributor=new SpaceDistributor();
+	private BoundSpring childSprings[][];
+	private BoundSpring rowSums[], colSums[];
+	private boolean rowDirty[];
+	private int colFrom[];
+	private BoundSpring colChecks[][];
+	private final static int BLOCK=64;
+	private int maxHspan, maxVspan;
+	private boolean laidOut[], sameRow[];
+	private int laidY[], laidHeights[], laidColWidths[];
+	private int laidX, laidEpoch;
+	private Container container;
+	private ComponentCell baselineCells[];
+	private SpanSolver rowSolver, colSolver;
 	public final static int NULL=0;
 	public final static int HSPAN=1;
 	public final static int VSPAN=2;
@@ -128,9 +143,15 @@ public class CellGrid extends Cell
 	}
 	public void initCellGrid(Cell[][] elements, int m, int n)
 	{
+		if(this.elements!=null)
+		{
+			for(int i=0;i<nr;i++)
+				for(int j=0;j<nc;j++)
+					indexRemoved(this.elements[i][j]);
+		}
 		this.elements=elements;
-		vspan=new byte[m][n];
-		hspan=new byte[m][n];
+		vspan=new int[m][n];
+		hspan=new int[m][n];
 		draw=new boolean[m][n];
 		alignments=new int[2][m][n];
 		fixedRowHeight=new boolean[m];
@@ -164,10 +185,12 @@ public class CellGrid extends Cell
 				int k=1;
 				for( ;(j+k)<n;k++)
 					if(elements[i][j+k]!=HSPANCELL)break;
-				hspan[i][j]=(byte)k;
+				hspan[i][j]=k;
 				for(k=1 ;(i+k)<m;k++)
 					if(elements[i+k][j]!=VSPANCELL)break;
-				vspan[i][j]=(byte)k;
+				vspan[i][j]=k;
+				maxHspan=max(maxHspan,hspan[i][j]);
+				maxVspan=max(maxVspan,vspan[i][j]);
 				int ky=0;
 				for(int p=i;(ky<vspan[i][j])&&(p<nr);p++,ky++)
 				{
@@ -184,87 +207,274 @@ public class CellGrid extends Cell
 		}
 		nr=m;
 		nc=n;
+		childSprings=new BoundSpring[m][n];
+		rowSums=new BoundSpring[m];
+		colSums=new BoundSpring[n];
+		rowDirty=new boolean[m];
+		colFrom=new int[n];
+		laidOut=new boolean[m];
+		colChecks=new BoundSpring[m/BLOCK+1][n];
+		markDirty();
 		propagateAlignments();		
 	}
 	private void propagateAlignments()
 	{
-		for(int i=0;i<nr;i++)
+		for(int i=0;i<nr;i++)propagateAlignments(i);
+	}
+	private void propagateAlignments(int i)
+	{
+		for(int j=0;j<nc;j++)
 		{
-			for(int j=0;j<nc;j++)
-			{
-				Cell cell=elements[i][j];
-				if(!CellContainer.class.isInstance(cell))
-						continue;
-				alignments[0][i][j]=
-					(byte)cell.getAlignment(0,
-							alignments[0][i][j]);
-				alignments[1][i][j]=
-					(byte)cell.getAlignment(1,
-							alignments[1][i][j]);
-				
-			}
+			Cell cell=elements[i][j];
+			if(!CellContainer.class.isInstance(cell))
+					continue;
+			alignments[0][i][j]=
+				(byte)cell.getAlignment(0,
+						alignments[0][i][j]);
+			alignments[1][i][j]=
+				(byte)cell.getAlignment(1,
+						alignments[1][i][j]);
 		}
 		if(nc<=1)return;
-		ComponentCell[] cells=new ComponentCell[nc];
-		int p=0;
+		if((baselineCells==null)||(baselineCells.length!=nc))
+			baselineCells=new ComponentCell[nc];
+		ComponentCell[] cells=baselineCells;
 		int yalign=0;	
-		for(int i=0;i<nr;i++)
+		int k=0;
+		for(int j=0;j<nc;j++)
 		{
-			int k=0;
+			cells[j]=null;
+			Cell cell=elements[i][j];
+			if(cell==null)continue;
+			ComponentCell cc=cell.getComponentCell();
+			if(cc==null)continue;
+			if(k==0)
+				yalign=alignments[1][i][j];
+			if(alignments[1][i][j]==yalign)
+			{
+				cells[j]=cc;
+				k++;
+			}
+		}
+		if(k>1)alignBaseline(cells,nc);
+		Arrays.fill(cells,null);
+	}
+/**
+	Recomputes the spans of all the cells of the grid from the 
+	positions of the {@link pagelayout.CellGrid#HSPANCELL HSPANCELL} and
+	{@link pagelayout.CellGrid#VSPANCELL VSPANCELL} elements, and the
+	alignments of the cells in each row.  It should be called after the
+	array {@link pagelayout.CellGrid#elements elements} has been 
+	modified directly.
+	{@link pagelayout.CellGrid#replaceChild replaceChild} updates
+	only the elements affected by the replaced cell, and does not 
+	need to be followed by a call to this method.
+**/
+	public void update()
+	{
+		for(int i=0;i<nr;i++)
 			for(int j=0;j<nc;j++)
+				updateSpans(i,j);
+		markDirty();
+		propagateAlignments();
+	}
+/**
+	Updates the spans of the cells after the element at the given 
+	row and column has been replaced. Only the cells whose spans may
+	include the element are examined, i.e., the cells above and to 
+	the left of it within the largest span in the grid, and only the
+	rows and columns covered by the old or the new spans of these
+	cells are marked for the recomputation of their springs and 
+	alignments.
+**/
+	private void update(int row, int col)
+	{
+		int i0=max(0,row-maxVspan);
+		int j0=max(0,col-maxHspan);
+		for(int i=i0;i<=row;i++)
+			for(int j=j0;j<=col;j++)
 			{
-				cells[j]=null;
-				Cell cell=elements[i][j];
-				if(cell==null)continue;
-				ComponentCell cc=cell.getComponentCell();
-				if(cc==null)continue;
-				if(k==0)
-					yalign=alignments[1][i][j];
-				if(alignments[1][i][j]==yalign)
+				int h=hspan[i][j];
+				int v=vspan[i][j];
+				boolean d=draw[i][j];
+				updateSpans(i,j);
+				if((h==hspan[i][j])&&(v==vspan[i][j])&&
+					(d==draw[i][j])&&((i!=row)||(j!=col)))
+					continue;
+				int i1=min(nr,i+max(1,max(v,vspan[i][j])));
+				int j1=min(nc,j+max(1,max(h,hspan[i][j])));
+				for(int p=i;p<i1;p++)rowDirty[p]=true;
+				for(int q=j;q<j1;q++)colFrom[q]=min(colFrom[q],i);
+			}
+	}
+/**
+	Recomputes the spans of the cell at the given row and column, 
+	and replaces the elements covered by the interior of its span,
+	if any, by {@link pagelayout.CellGrid#NULLCELL NULLCELL}.
+**/
+	private void updateSpans(int i, int j)
+	{
+		Cell c=elements[i][j];
+		draw[i][j]=(c!=null)&&(c!=VSPANCELL)&&(c!=HSPANCELL);
+		if(!draw[i][j])
+		{
+			hspan[i][j]=vspan[i][j]=0;
+			return;
+		}
+		if(c!=NULLCELL)c.setParent(this);
+		int k=1;
+		for( ;(j+k)<nc;k++)
+			if(elements[i][j+k]!=HSPANCELL)break;
+		hspan[i][j]=k;
+		for(k=1 ;(i+k)<nr;k++)
+			if(elements[i+k][j]!=VSPANCELL)break;
+		vspan[i][j]=k;
+		maxHspan=max(maxHspan,hspan[i][j]);
+		maxVspan=max(maxVspan,vspan[i][j]);
+		int ky=0;
+		for(int p=i;(ky<vspan[i][j])&&(p<nr);p++,ky++)
+		{
+			int kx=0;
+			for(int q=j;(kx<hspan[i][j])&&(q<nc);q++,kx++)
+			{
+				if((p==i)||(q==j))continue;
+				Cell old=elements[p][q];
+				if(old==NULLCELL)continue;
+				if(old!=null)
 				{
-					cells[j]=cc;
-					k++;
+					indexRemoved(old);
+					old.removeAllComponents(null);
 				}
+				elements[p][q]=NULLCELL;
+				draw[p][q]=true;
+				hspan[p][q]=vspan[p][q]=1;
 			}
-			if(k>1)alignBaseline(cells,nc);
 		}
-			
 	}
-	public void update()
+/**
+	Marks the springs and the alignments of all the rows and columns
+	for recomputation.
+**/
+	private void markDirty()
 	{
-		for(int i=0;i<nr;i++)
+		Arrays.fill(rowDirty,true);
+		Arrays.fill(colFrom,0);
+	}
+/**
+	Appends a row to the bottom of the grid. 
+	See {@link pagelayout.CellGrid#appendRows appendRows}.
+
+	@param row the row to be appended.
+**/
+	public void appendRow(GridRow row)
+	{
+		appendRows(row);
+	}
+/**
+	Appends rows to the bottom of the grid. The components of the 
+	cells in the new rows are added to the container of the grid, if
+	it has already been laid out in a container, and the container is
+	revalidated. The storage of the grid grows geometrically, and when
+	the container is laid out again only the springs of the new rows,
+	and of the rows whose cells are extended by the 
+	{@link pagelayout.CellGrid#VSPANCELL VSPANCELL} elements of the
+	new rows, are computed, so that rows may be appended at a high rate,
+	as in a log viewer.
+
+	@param rows the rows to be appended. A row may have fewer cells,
+	but not more cells, than the number of columns of the grid.
+**/
+	public void appendRows(GridRow... rows)
+	{
+		int m=rows.length;
+		for(int k=0;k<m;k++)
+			if(rows[k].size()>nc)
+				throw new IllegalArgumentException(
+					"A row with "+rows[k].size()+
+					" cells cannot be appended to a grid with "+
+					nc+" columns.");
+		ensureCapacity(nr+m);
+		int first=nr;
+		for(int k=0;k<m;k++)
 		{
+			int i=nr++;
+			Cell[] cells=rows[k].getCells();
+			fixedRowHeight[i]=false;
+			rowDirty[i]=true;
+			for(int j=0;j<nc;j++)
+			{
+				Cell c=(j<cells.length?cells[j]:null);
+				elements[i][j]=(c==null?NULLCELL:c);
+				draw[i][j]=false;
+				hspan[i][j]=vspan[i][j]=0;
+				childSprings[i][j]=null;
+				alignments[0][i][j]=
+					rows[k].getHorizontalAlignment(j);
+				alignments[1][i][j]=
+					rows[k].getVerticalAlignment(j);
+			}
 			for(int j=0;j<nc;j++)
 			{
 				Cell c=elements[i][j];
-				draw[i][j]=(c!=null)&&(c!=VSPANCELL)&&
-						(c!=HSPANCELL);
-				if(!draw[i][j])continue;
-				if(c!=null)c.setParent(this);
-				int k=1;
-				for( ;(j+k)<nc;k++)
-					if(elements[i][j+k]!=HSPANCELL)break;
-				hspan[i][j]=(byte)k;
-				for(k=1 ;(i+k)<nr;k++)
-					if(elements[i+k][j]!=VSPANCELL)break;
-				vspan[i][j]=(byte)k;
-				int ky=0;
-				for(int p=i;(ky<vspan[i][j])&&(p<nr);p++,ky++)
-				{
-					int kx=0;
-					for(int q=j;(kx<hspan[i][j])&&(q<nc);
-								q++,kx++)
-					{
-						if((p==i)||(q==j))continue;
-						replaceChild(
-							getIndex(p,q),
-							NULLCELL,null);
-					}
-				}
-				
+				if(c==VSPANCELL)update(i,j);
+				else if(c!=NULLCELL)updateSpans(i,j);
 			}
 		}
-		propagateAlignments();
+		Container parent=container;
+		if(parent!=null)
+		{
+			for(int i=first;i<nr;i++)
+				for(int j=0;j<nc;j++)
+					if(draw[i][j])
+					  elements[i][j].addComponentsToContainer(
+					  		parent);
+		}
+		invalidatePath();
+		if(getUpdateBatch()!=null)
+		{
+			if(parent!=null)validateContainer(parent);
+		}
+		else if(parent instanceof javax.swing.JComponent)
+		{
+			parent.revalidate();
+			parent.repaint();
+		}
+		else if(parent!=null)parent.invalidate();
+	}
+/**
+	Makes sure that the arrays of the grid have room for at least
+	the given number of rows.
+**/
+	private void ensureCapacity(int m)
+	{
+		int cap=elements.length;
+		if(m<=cap)return;
+		cap=max(m,cap+(cap>>1)+8);
+		elements=Arrays.copyOf(elements,cap);
+		draw=Arrays.copyOf(draw,cap);
+		hspan=Arrays.copyOf(hspan,cap);
+		vspan=Arrays.copyOf(vspan,cap);
+		alignments[0]=Arrays.copyOf(alignments[0],cap);
+		alignments[1]=Arrays.copyOf(alignments[1],cap);
+		childSprings=Arrays.copyOf(childSprings,cap);
+		for(int i=nr;i<cap;i++)
+		{
+			elements[i]=new Cell[nc];
+			draw[i]=new boolean[nc];
+			hspan[i]=new int[nc];
+			vspan[i]=new int[nc];
+			alignments[0][i]=new int[nc];
+			alignments[1][i]=new int[nc];
+			childSprings[i]=new BoundSpring[nc];
+		}
+		fixedRowHeight=Arrays.copyOf(fixedRowHeight,cap);
+		rowSums=Arrays.copyOf(rowSums,cap);
+		rowDirty=Arrays.copyOf(rowDirty,cap);
+		laidOut=Arrays.copyOf(laidOut,cap);
+		int nb=colChecks.length;
+		colChecks=Arrays.copyOf(colChecks,cap/BLOCK+1);
+		for(int b=nb;b<colChecks.length;b++)
+			colChecks[b]=new BoundSpring[nc];
 	}
 /**
 	Recursively calls the 
@@ -277,6 +487,7 @@ public class CellGrid extends Cell
 **/
 	public void addComponentsToContainer(Container container)
 	{
+		this.container=container;
 		for(int i=0;i<nr;i++)
 			for(int j=0;j<nc;j++)
 			  if(elements[i][j]!=null)
@@ -293,10 +504,24 @@ public class CellGrid extends Cell
 	protected void setBounds(int x, int y, int width, int height)
 	{
 		BoundSpring gridSpring=getBoundSpring();
-		colWidths=Row.getColumnWidths(
-				x,y,width,height,gridSpring,colSprings,nc);
-		rowHeights=Column.getRowHeights(
-				x,y,width,height,gridSpring,rowSprings,nr);
+		colWidths=SpaceDistributor.distribute(colSprings,nc,width,
+			gridSpring.getMinimumWidth(),0,colWidths,distributor);
+		rowHeights=SpaceDistributor.distribute(rowSprings,nr,height,
+			gridSpring.getMinimumHeight(),1,rowHeights,distributor);
+		int epoch=getRootCell().boundsEpoch;
+		boolean sameColumns=(x==laidX)&&(epoch==laidEpoch)&&
+				Arrays.equals(colWidths,laidColWidths);
+		if((sameRow==null)||(sameRow.length<nr))
+		{
+			int cap=elements.length;
+			sameRow=new boolean[cap];
+			laidY=Arrays.copyOf(laidY==null?new int[0]:laidY,cap);
+			laidHeights=Arrays.copyOf(
+				laidHeights==null?new int[0]:laidHeights,cap);
+		}
+		for(int i=0,y0=y;i<nr;y0+=rowHeights[i++])
+			sameRow[i]=sameColumns&&laidOut[i]&&(laidY[i]==y0)&&
+					(laidHeights[i]==rowHeights[i]);
 		for(int i=0;i<nr;i++)
 		{
 			int x0=x;
@@ -304,7 +529,7 @@ public class CellGrid extends Cell
 			for(int j=0;j<nc;j++)
 			{
 				int cw=colWidths[j];
-				if(draw[i][j])
+				if(draw[i][j]&&!isLaidOut(i,vspan[i][j]))
 				{
 					int ew=cw;
 					for(int k=1;k<hspan[i][j];k++)
@@ -321,11 +546,31 @@ public class CellGrid extends Cell
 				}
 				x0+=cw;
 			} 
+			laidY[i]=y;
+			laidHeights[i]=rh;
+			laidOut[i]=true;
 			y+=rh;
 		}
-		
+		laidX=x;
+		laidEpoch=epoch;
+		if((laidColWidths==null)||(laidColWidths.length!=nc))
+			laidColWidths=new int[nc];
+		System.arraycopy(colWidths,0,laidColWidths,0,nc);
 	}
-	private void setBounds(Cell c, int x,int y, int w,int h, int halign,
+/**
+	Returns <code>true</code> if the given rows were laid out with the
+	same springs, positions and heights, and the columns with the same 
+	widths, in the previous call to 
+	{@link pagelayout.CellGrid#setBounds(int,int,int,int) setBounds},
+	so that the cells that span these rows are already in place.
+**/
+	private boolean isLaidOut(int row, int nspan)
+	{
+		for(int i=row;i<row+nspan;i++)
+			if(!sameRow[i])return false;
+		return true;
+	}
+	static void setBounds(Cell c, int x,int y, int w,int h, int halign,
 				int valign,int i,int j)
 	{
 		if(FillerPanelCell.class.isInstance(c))
@@ -388,6 +633,7 @@ public class CellGrid extends Cell
 	{
 		setAlignments(halign,0);
 		setAlignments(valign,1);
+		markDirty();
 	}
 /**
 	Sets the vertical and horizontal alignments of a cell in the frid.
@@ -409,7 +655,7 @@ public class CellGrid extends Cell
 		alignments[1][rowIndex][columnIndex]=
 					CellContainer.limitAlignment(
 						valign,false);;
-		
+		rowDirty[rowIndex]=true;
 	}
 	private void setAlignments(int[][] align, int coord) 
 	{	
@@ -643,80 +889,126 @@ public class CellGrid extends Cell
 /**
 	Computes the two-dimensional spring associated with the grid 
 	that results from  the approriate combination of the springs 
-	of the child cells.
+	of the child cells. The combined springs of the cells of each row
+	and column are kept, and are recomputed only for the rows and 
+	columns in which a cell has been replaced, or the spring of 
+	a cell has changed, since the previous call.
 
 	@return The computed two-dimensional spring.
 **/
 	public BoundSpring computeBoundSpring()
 	{
-		propagateAlignments();
-		BoundSpring rh[]=rowSprings;
-		if((rh==null)||(rh.length!=nr))
-		{
-			rh=new BoundSpring[nr];
-			rowSprings=rh;
-		}
-		BoundSpring cw[]=colSprings;
-		if((cw==null)||(cw.length!=nc))
-		{
-			cw=new BoundSpring[nc];
-			colSprings=cw;
-		}
 		Cell[][] p=elements;
 		for(int i=0;i<nr;i++)
 		{
+			if(!rowDirty[i])
+			{
+				for(int j=0;j<nc;j++)
+				{
+					Cell c=p[i][j];
+					if((c!=null)&&
+					   (c.boundSpring!=childSprings[i][j]))
+					{
+						rowDirty[i]=true;
+						break;
+					}
+				}
+				if(!rowDirty[i])continue;
+			}
+			propagateAlignments(i);
 			int k=0;
 			BoundSpring rb=null;
 			for(int j=0;j<nc;j++)
 			{
+				Cell c=p[i][j];
+				if(c==null)continue;
+			        BoundSpring bs=c.getBoundSpring();
+				if(bs!=childSprings[i][j])
+				{
+					childSprings[i][j]=bs;
+					if(i<colFrom[j])colFrom[j]=i;
+				}
 				if(!draw[i][j])continue;
 				if(vspan[i][j]>1)continue;
-			        BoundSpring bs=p[i][j].getBoundSpring();
 				if(k==0)rb=
 				 new BoundSpring(bs);
 				else
 				 BoundSpring.addx(rb,bs);
 				k++;
 			}
-			if(k>0)rh[i]=rb;
-			else rh[i]=new BoundSpring((BoundSpring)null);
-		}
-		for(int i=0;i<nr;i++)
-		{
-			for(int j=0;j<nc;j++)
-			{
-				if(!draw[i][j])continue;
-				if(vspan[i][j]<=1)continue;
-			        BoundSpring bs=p[i][j].getBoundSpring();
-				modifySpannedSize(bs,vspan[i][j],i,rh,1);
-			}
+			if(k>0)rowSums[i]=rb;
+			else rowSums[i]=new BoundSpring((BoundSpring)null);
+			rowDirty[i]=false;
+			laidOut[i]=false;
 		}
 		for(int j=0;j<nc;j++)
 		{
+			if(colFrom[j]>=nr)continue;
+			int i0=(colFrom[j]/BLOCK)*BLOCK;
+			BoundSpring cb=colChecks[i0/BLOCK][j];
 			int k=0;
-			BoundSpring cb=null;
-			for(int i=0;i<nr;i++)
+			if(cb!=null)
+			{
+				cb=new BoundSpring(cb);
+				k++;
+			}
+			for(int i=i0;i<nr;i++)
 			{
+				if((i>i0)&&(i%BLOCK==0))
+				  colChecks[i/BLOCK][j]=
+					(cb==null?null:new BoundSpring(cb));
 				if(p[i][j]==null)continue;
 				if(hspan[i][j]>1)continue;
-			        BoundSpring bs=p[i][j].getBoundSpring();
+			        BoundSpring bs=childSprings[i][j];
 				if(k==0)cb=
 				 new BoundSpring(bs);
 				else
 				 BoundSpring.addy(cb,bs);
 				k++;
 			}
-			if(k>0)cw[j]=cb;
-			else cw[j]=new BoundSpring((BoundSpring)null);
+			if(k>0)colSums[j]=cb;
+			else colSums[j]=new BoundSpring((BoundSpring)null);
+			colFrom[j]=nr;
+		}
+		BoundSpring rh[]=rowSprings;
+		if((rh==null)||(rh.length!=nr))
+		{
+			rh=new BoundSpring[nr];
+			rowSprings=rh;
+		}
+		BoundSpring cw[]=colSprings;
+		if((cw==null)||(cw.length!=nc))
+		{
+			cw=new BoundSpring[nc];
+			colSprings=cw;
 		}
 		for(int i=0;i<nr;i++)
+			rh[i]=((maxVspan>1)||fixedRowHeight[i]?
+				new BoundSpring(rowSums[i]):rowSums[i]);
+		for(int j=0;j<nc;j++)
+			cw[j]=((maxHspan>1)||fixedColumnWidth[j]?
+				new BoundSpring(colSums[j]):colSums[j]);
+		if((maxVspan>1)||(maxHspan>1))
 		{
-			for(int j=0;j<nc;j++)
+			if(rowSolver==null)
 			{
-				if(!draw[i][j])continue;
-				if(hspan[i][j]<=1)continue;
-			        BoundSpring bs=p[i][j].getBoundSpring();
-				modifySpannedSize(bs,hspan[i][j],j,cw,0);
+				rowSolver=new SpanSolver(1);
+				colSolver=new SpanSolver(0);
+			}
+			rowSolver.reset(rh,nr);
+			colSolver.reset(cw,nc);
+			for(int i=0;i<nr;i++)
+			{
+				for(int j=0;j<nc;j++)
+				{
+					if(!draw[i][j])continue;
+					if(vspan[i][j]>1)
+						rowSolver.add(childSprings[i][j],
+							i,vspan[i][j]);
+					if(hspan[i][j]>1)
+						colSolver.add(childSprings[i][j],
+							j,hspan[i][j]);
+				}
 			}
 		}
 		BoundSpring vert=new BoundSpring(rh[0]);
@@ -743,7 +1035,7 @@ public class CellGrid extends Cell
 		int n=(columns==null?0:columns.length);
 		for(int i=0;i<n;i++)if((columns[i]>=0)&&(columns[i]<nc))
 					fixedColumnWidth[columns[i]]=true;
-		invalidate();
+		invalidatePath();
 	}
 /**
 	Fixes the heights of the specified rows so they do not change
@@ -757,7 +1049,7 @@ public class CellGrid extends Cell
 		int n=(rows==null?0:rows.length);
 		for(int i=0;i<n;i++)if((rows[i]>=0)&&(rows[i]<nr))
 					fixedRowHeight[rows[i]]=true;
-		invalidate();
+		invalidatePath();
 	}
 /**
 	Returns the number of cells in the grid.
@@ -827,85 +1119,27 @@ public class CellGrid extends Cell
 		int col=index%nc;
 		if((row>=nr)||(col>=nc))return false;
 		Cell child=elements[row][col];
-		if(child!=null)child.removeAllComponents(parent);
+		if(child!=null)
+		{
+			indexRemoved(child);
+			child.removeAllComponents(parent);
+		}
 		if(newCell!=null)
 		{
 			elements[row][col]=newCell;
+			if(newCell!=NULLCELL)newCell.setParent(this);
 			if(parent!=null)
 			newCell.addComponentsToContainer(parent);
 		}
 		else elements[row][col]=NULLCELL;
-		update();
+		update(row,col);
+		invalidatePath();
 		return true;
 	}
 	public int getIndex(int rowIndex, int columnIndex)
 	{
 		return rowIndex*nc+columnIndex;
 	}
-	private void modifySpannedSize(BoundSpring bs,int nspan,
-			int beg, BoundSpring[] e,int coordinate)
-	{
-		BoundSpring span=new BoundSpring(e[beg]);
-		if(nspan<=1)return;
-		for(int i=1;i<nspan;i++)
-			if(coordinate==0)span.addx(span,e[beg+i]);
-			else	span.addy(span,e[beg+i]);
-		for(int type=0;type<3;type++)
-		{
-			int hs=span.getSize(type,coordinate);
-			int es=bs.getSize(type,coordinate);
-			if(es>hs)
-			{
-		  	  if(hs==0)
-			  {
-				int nf=0;
-				for(int i=0;i<nspan;i++)
-					if(!e[beg+i].isFixed(coordinate))nf++;
-				if(nf==0)
-				{
-				   e[beg+nspan-1].setSize(es,type,coordinate);
-				}
-				else
-				{
-					int d=(int)round(es/(nspan-nf));
-					for(int i=0;i<nspan;i++)
-					  if(!e[beg+i].isFixed(coordinate))
-					  e[beg+i].setSize(d,type,coordinate);
-				}
-			  }
-			  else
-			  {
-				int nf=0;
-				for(int i=0;i<nspan;i++)
-					if(!e[beg+i].isFixed(coordinate))nf++;
-				if(nf==0)
-				{
-			           int v=e[beg+nspan-1].getSize(
-					type,coordinate);
-				   e[beg+nspan-1].setSize(v+es-hs,
-					type,coordinate);
-				   continue;
-				}
-				int fs=0;
-				for(int i=0;i<nspan;i++)
-				{
-				  if(!e[beg+i].isFixed(coordinate))
-					fs+=e[beg+i].getSize(type,coordinate);
-				}
-				double f=(double)(es-hs)/(double)fs;
-				for(int i=0;i<nspan;i++)
-				{
-				       if(e[beg+i].isFixed(coordinate))continue;
-					  
-                                        int v=e[beg+i].getSize(type,coordinate);
-					int d=(int)round(
-					  f*v+v);
-					e[beg+i].setSize(d,type,coordinate);
-				}
-			   }
-			}
-		}
-	}
 /**
 	Sets the width of the margins (empty space ) at the beginning or
 	end of the specified rows.
@@ -926,6 +1160,7 @@ public class CellGrid extends Cell
 		{
 			if((row<0)||(row>=nr))continue;
 			Row newCell=new Row();
+			newCell.setParent(this);
 			
 			if(side==Cell.LEFT)
 			{
@@ -952,7 +1187,7 @@ public class CellGrid extends Cell
 			  }
 			}
 		}
-		invalidate();
+		invalidatePath();
 	}
 /**
 	Sets the height of the margins or empty space at the top or
@@ -974,6 +1209,7 @@ public class CellGrid extends Cell
 		{
 			if((column<0)||(column>=nc))continue;
 			Column newCell=new Column();
+			newCell.setParent(this);
 			
 			if(side==Cell.TOP)
 			{
@@ -999,7 +1235,7 @@ public class CellGrid extends Cell
 			  }	
 			}
 		}
-		invalidate();
+		invalidatePath();
 	}
 	protected static CellGrid createCellGridFromCells(Cell... cells)
 	{
@@ -0,0 +1,177 @@
+/*
+	------------------------------------------------
+	CellIndex.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import java.util.*;
+/**
+	A <code>CellIndex</code> is kept by the top level cell of a tree of
+	cells to map the components in the tree to the cells that wrap 
+	them, i.e. the {@link pagelayout.ComponentCell ComponentCell}, 
+	{@link pagelayout.PanelCell PanelCell} and
+	{@link pagelayout.TabbedPaneCell TabbedPaneCell} objects, and the
+	names of the cells (see
+	{@link pagelayout.Cell#setName setName}) to the cells. It is
+	built when it is first needed, and is then updated by the 
+	{@link pagelayout.Cell Cell} methods that add, replace, or 
+	remove cells in the tree, so that the methods 
+	{@link pagelayout.Cell#getComponentCell getComponentCell} and
+	{@link pagelayout.Cell#getCellByName getCellByName} do not need
+	to traverse the tree. Several cells may have the same name, and 
+	each name is mapped to all of them, so that removing one of them
+	leaves the others in the index.
+**/
+class CellIndex
+{
+	private IdentityHashMap<Component,Cell> components;
+	private HashMap<String,Vector<Cell>> names;
+/**
+	Creates the index for the tree of cells with the given root.
+
+	@param root the top level cell of the tree.
+**/
+	CellIndex(Cell root)
+	{
+		components=new IdentityHashMap<Component,Cell>();
+		names=new HashMap<String,Vector<Cell>>();
+		add(root);
+	}
+/**
+	Adds the given cell and all its descendants to the index.
+
+	@param cell the root of the subtree to be added.
+**/
+	void add(Cell cell)
+	{
+		if(cell==null)return;
+		if(!(cell instanceof CardCell))
+		{
+			Component c=cell.getComponent();
+			if(c!=null)components.put(c,cell);
+		}
+		addName(cell,cell.getName());
+		if(cell instanceof CardCell)
+		{
+			for(Cell card:((CardCell)cell).getCards())add(card);
+			return;
+		}
+		int n=cell.numberOfChildren();
+		for(int i=0;i<n;i++)
+			add(cell.getChildAt(i));
+	}
+/**
+	Removes the given cell and all its descendants from the index.
+
+	@param cell the root of the subtree to be removed.
+**/
+	void remove(Cell cell)
+	{
+		if(cell==null)return;
+		if(!(cell instanceof CardCell))
+		{
+			Component c=cell.getComponent();
+			if((c!=null)&&(components.get(c)==cell))
+				components.remove(c);
+		}
+		removeName(cell,cell.getName());
+		if(cell instanceof CardCell)
+		{
+			for(Cell card:((CardCell)cell).getCards())remove(card);
+			return;
+		}
+		int n=cell.numberOfChildren();
+		for(int i=0;i<n;i++)
+			remove(cell.getChildAt(i));
+	}
+/**
+	Updates the index after the name of a cell in the tree has changed.
+
+	@param cell the cell whose name has changed.
+	@param oldName the previous name of the cell.
+**/
+	void rename(Cell cell, String oldName)
+	{
+		if(oldName!=null)removeName(cell,oldName);
+		addName(cell,cell.getName());
+	}
+	private void addName(Cell cell, String name)
+	{
+		if(name.length()==0)return;
+		Vector<Cell> cells=names.get(name);
+		if(cells==null)
+		{
+			cells=new Vector<Cell>(1);
+			names.put(name,cells);
+		}
+		else if(cells.contains(cell))return;
+		cells.addElement(cell);
+	}
+	private void removeName(Cell cell, String name)
+	{
+		Vector<Cell> cells=names.get(name);
+		if(cells==null)return;
+		cells.removeElement(cell);
+		if(cells.isEmpty())names.remove(name);
+	}
+/**
+	Returns the cell wrapping the given component.
+
+	@param component the component.
+	@return The cell wrapping the component, or <code>null</code> if
+	the component is not in the tree.
+**/
+	ComponentCell getComponentCell(Component component)
+	{
+		Cell cell=components.get(component);
+		if(cell instanceof ComponentCell)return (ComponentCell)cell;
+		return null;
+	}
+/**
+	Returns the cell which wraps the given component, which may also
+	be the panel of a {@link pagelayout.PanelCell PanelCell} or the
+	pane of a {@link pagelayout.TabbedPaneCell TabbedPaneCell}.
+
+	@param component the component.
+	@return The cell wrapping the component, or <code>null</code> if
+	the component is not in the tree.
+**/
+	Cell getCell(Component component)
+	{
+		return components.get(component);
+	}
+/**
+	Returns a cell with the given name.
+
+	@param name the name of the cell.
+	@return One of the cells with the given name, or <code>null</code>
+	if there is no such cell in the tree.
+**/
+	Cell getCellByName(String name)
+	{
+		Vector<Cell> cells=names.get(name);
+		return cells==null?null:cells.firstElement();
+	}
+/**
+	Returns whether only one cell in the tree has the given name.
+
+	@param name the name.
+	@return <code>true</code> if exactly one cell has the name.
+**/
+	boolean isUniqueName(String name)
+	{
+		Vector<Cell> cells=names.get(name);
+		return (cells!=null)&&(cells.size()==1);
+	}
+}
@@ -0,0 +1,32 @@
+/*
+	------------------------------------------------
+	CellSupplier.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+/**
+	A <code>CellSupplier</code> creates a cell on demand. It is used
+	to register the contents of a tab of a 
+	{@link pagelayout.TabbedPaneCell TabbedPaneCell} which is not
+	built until the tab is first shown.
+**/
+public interface CellSupplier
+{
+/**
+	Creates the cell. It is called on the event dispatch thread, at
+	most once for each registration of the supplier.
+
+	@return the created cell.
+**/
+	public Cell get();
+}
@@ -18,7 +18,6 @@
 package pagelayout;
 import java.awt.*;
 import javax.swing.*;
-import static java.lang.Math.*;
 /**
 	A <code>Column</code> is a collection of {@link pagelayout.Cell Cell} objects
 	in which the elements are
@@ -38,6 +37,8 @@ specified in the constructor.
 public class Column extends CellContainer
 {
 	private BoundSpring rowSprings[];
+	private int[] rowHeights, constrainedWidths;
+	private final SpaceDistributor distributor=new SpaceDistributor();
 /**
 		Creates a column with the specified alignments.
 		
@@ -65,7 +66,10 @@ public class Column extends CellContainer
 	{
 		super(Cell.NO_ALIGNMENT,Cell.NO_ALIGNMENT,false);
 		for(Cell cellrow:cellrows)
+		{
 			cells.add(cellrow);
+			cellrow.setParent(this);
+		}
 	}
 /**
 	Creates a column with the specified alignments. The input cells are arranged sequentially from top to bottom.
@@ -78,7 +82,10 @@ public class Column extends CellContainer
 	{
 		super(halign,valign,false);
 		for(Cell cellrow:cellrows)
+		{
 			cells.add(cellrow);
+			cellrow.setParent(this);
+		}
 	} 
 /**
 	Creates a column with no alignment. The input components are arranged sequentially from top to bottom.
@@ -201,7 +208,8 @@ public class Column extends CellContainer
 		int wi=w;
 		int xi=x;
 		int dw=0;
-		int[] constrainedWidth=new int[n];
+		int[] constrainedWidth=constrainedWidths=
+				getBuffer(constrainedWidths,n);
 		for(int i=0;i<n;i++)constrainedWidth[i]=-1;
 		Constraint constraint=getConstraint();
 		filledSizeY=y;
@@ -252,7 +260,8 @@ public class Column extends CellContainer
 		if((rowSprings==null)||(rowSprings.length<n))
 			invalidate();
 		BoundSpring p=getBoundSpring();
-		return getRowHeights(x,y,w,h,p,rowSprings,n);
+		return rowHeights=SpaceDistributor.distribute(rowSprings,n,h,
+				p.getMinimumHeight(),1,rowHeights,distributor);
 	}
 /**
 	Computes the heights of the individual rows contained in a column bounded by the specified rectangle. This method is used by this class and {@link pagelayout.CellGrid CellGrid} to layout the rows of a column when the method {@link pagelayout.Column#setBounds setBounds} of the two classes is called.
@@ -270,165 +279,52 @@ public class Column extends CellContainer
 	protected static int[] getRowHeights(int x,int y,int width,int height,
 			BoundSpring boundSpring, BoundSpring[] rowSprings,int n)
 	{
-		int w=width;
-		int h=height;
-		BoundSpring p=boundSpring;
-		int[] heightArray=new int[n]; 
-		//int ph=p.getPreferredHeight();
-		int ph=p.getMinimumHeight();
-		if(h>ph)
-		{
-			float available=0;
-			int last=-1;
-			int mingap=0;
-			int lastr=-1;;
-			int numGap=0;
-			int numComp=0;
-			int comp=0;
-			for(int i=0;i<n;i++)
-			{
-				int rh=rowSprings[i].getPreferredHeight();
-				if(rowSprings[i].isYFixed())
-				{
-					heightArray[i]=rh;
-					h-=rh;
-				}
-				else 
-				{
-					available+=rh;
-					last=i;
-					if(rowSprings[i].isGap())
-					{
-					  mingap+=
-					   rowSprings[i].getMinimumHeight();
-					  numGap++;
-					}
-					else
-					{
-					  lastr=i;
-					  numComp++;
-					  comp+=rh;
-				        }
-				} 
-			}
-			if(last>=0)
-			{
-			   int used=0;
-			   if((numGap==0)||(mingap>h)||(numComp==0))
-			   {
-			     float ratio=h/available;
-			     int minh=0;
-			     int toolow=0;
-			     available=0;
-			     for(int i=0;i<last;i++)
-			     {
-				if(rowSprings[i].isYFixed())continue;
-				int phe=rowSprings[i].getPreferredHeight();
-				int rh=(int)round(phe*ratio);
-				heightArray[i]=rh;
-				int mh=rowSprings[i].getMinimumHeight();
-				if(rh<mh)
-				{
-					toolow++;
-					minh+=mh;
-				}	
-				else available+=phe;
-				used+=rh;
-			     }
-			     heightArray[last]=(int)round(h-used);
-			     if(heightArray[last]<
-				 rowSprings[last].getMinimumHeight())
-			     {
-					toolow++;
-					minh+=
-				        rowSprings[last].getMinimumHeight();
-			     }
-			     else available+=
-				 rowSprings[last].getPreferredHeight();
-			     if((toolow>0)&&(minh<h))
-			     {
-				
-			        ratio=(h-minh)/available;
-				used=0;
-			        for(int i=0;i<last;i++)
-			        {
-				  if(rowSprings[i].isYFixed())continue;
-				  int rh=rowSprings[i].getPreferredHeight();
-				  rh=(int)round(rh*ratio);
-				  heightArray[i]=rh;
-				  int mh=rowSprings[i].getMinimumHeight();
-				  if(rh<mh)
-					rh=heightArray[i]=mh;
-				  used+=rh;
-			        }
-			        heightArray[last]=(int)round(h-used);
-			     }
-			   }
-			   else
-			   {
-	 	              float hc=h-mingap;
-			      float ratio=hc/comp;
-			      int minh=0;
-			      comp=0;
-	                      int rh=0;
-                              for(int i=0;i<=last;i++)
-			      {
-				  if(rowSprings[i].isYFixed())continue;
-                                  if(rowSprings[i].isGap())
-				  {
-				  	heightArray[i]=rowSprings[i].
-							getMinimumHeight();
-					continue;
-				  }
-				  int phe=rowSprings[i].getPreferredHeight
-							();
-				  if(i<lastr)
-				  {
-					rh=(int)round(phe*ratio);
-					heightArray[i]=rh;
-					used+=rh;	
-				  }
-				  else
-			      		rh=heightArray[i]=(int)round(hc-used);
-				  int mh=rowSprings[i].getMinimumHeight();
-				  if(rh<mh)minh+=mh;
-				  else comp+=phe;
+		return getRowHeights(x,y,width,height,boundSpring,
+				rowSprings,n,null);
+	}
+/**
+	Same as {@link pagelayout.Column#getRowHeights(int,int,int,int,BoundSpring,BoundSpring[],int) getRowHeights}, except that the heights are
+	stored in the given buffer if its length is <code>n</code>.
 
-                              }
-			      if((minh>0)&&(minh<hc))
-			      {
-			      	ratio=(hc-minh)/comp;
-                                used=0;
-			        for(int i=0;i<=last;i++)
-			        {
-				  if(rowSprings[i].isYFixed())continue;
-                                  if(rowSprings[i].isGap())continue;
-				  int mh=rowSprings[i].getMinimumHeight();
-				  if(mh>heightArray[i])
-					rh=mh;
-				  else
-				  {
-				        int phe=rowSprings[i].getPreferredHeight();
-					rh=(int)round(phe*ratio);
-				  }
-				  if(i<lastr)
-				  {
-					heightArray[i]=rh;
-					used+=rh;	
-				  }
-				  else
-			      		rh=heightArray[i]=(int)round(hc-used);
+	@param x the x-coordinate of the top left of the rectangle.
+	@param y the y-coordinate of the top left of the rectangle.
+	@param width the width of the rectangle.
+	@param height the height of the rectangle.
+	@param boundSpring the two-dimensional spring associated with the column.
+	@param rowSprings the array of two-dimensional springs associated with the  rows of the column.
+	@param n the number of rows in the column.
+	@param buffer the array returned by the previous call for the same column, or <code>null</code>.
 
-                                 }
-			      }
-			   
-			   }
-			}
-		}
-		else for(int i=0;i<n;i++)
-			heightArray[i]=rowSprings[i].getMinimumHeight();
-			//heightArray[i]=rowSprings[i].getPreferredHeight();
-		return heightArray;
+	@return The array of heights of the individual rows to fit in the specified rectangle.
+**/
+	protected static int[] getRowHeights(int x,int y,int width,int height,
+			BoundSpring boundSpring, BoundSpring[] rowSprings,int n,
+			int[] buffer)
+	{
+		return SpaceDistributor.distribute(rowSprings,n,height,
+			boundSpring.getMinimumHeight(),1,buffer,null);
+	}
+/**
+	Prepares the column for the computation of its spring by the 
+	{@link pagelayout.SpringEngine SpringEngine} by removing the
+	trailing gaps if needed.
+**/
+	void prepareSprings()
+	{
+		if(cells.size()>0)cells.removeLastGapIfNeeded();
+	}
+/**
+	Collects the springs of the cells of the column after its spring 
+	has been computed by the {@link pagelayout.SpringEngine SpringEngine}.
+**/
+	void linkChildSprings()
+	{
+		int n=cells.size();
+		if(n==0)return;
+		if((rowSprings==null)||(rowSprings.length!=n))
+			rowSprings=new BoundSpring[n];
+		for(int i=0;i<n;i++)
+			rowSprings[i]=cells.elementAt(i).getBoundSpring();
 	}
 /**
 	Computes the two-dimensional spring associated with the column that results from stacking vertically the two-dimensional springs associated with each row of the column.
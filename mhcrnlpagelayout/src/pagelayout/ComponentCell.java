@@ -18,6 +18,8 @@
 package pagelayout;
 import java.awt.*;
 import javax.swing.*;
+import java.beans.*;
+import java.util.*;
 /**
 	<code>ComponentCell</code> is a class 
 	that wraps an object of the type <code>java.awt.Component</code>   
@@ -29,7 +31,9 @@ public class ComponentCell extends Cell
 {
 	private Component c;
 	private int baselineOffset;
+	private BaselineCache baselineCache;
 	protected int vgap, hgap;
+	private final static int UNKNOWN_BASELINE=Integer.MIN_VALUE;
 /**
 	The default height of the empty strip around horizontal edges of the
 	component.
@@ -54,6 +58,7 @@ public class ComponentCell extends Cell
 		vgap=VGAP;
 		hgap=HGAP;
 		baselineOffset=0;
+		initBaseline();
 	}
 /**
 	Creates the <code>Cell</code> object for a component with specified gaps.
@@ -68,10 +73,18 @@ public class ComponentCell extends Cell
 		if(component instanceof JTextField)setTFHeight();
 		this.vgap=verticalGap;
 		this.hgap=horizontalGap;
+		initBaseline();
+	}
+	private void initBaseline()
+	{
+		if((c instanceof JComponent)&&isBaselineClass(c.getClass()))
+			baselineCache=BaselineCache.get((JComponent)c);
 	}
 	public void setBaselineOffset(int b)
 	{
+		if(b==baselineOffset)return;
 		baselineOffset=b;
+		boundSpring=null;
 	}
 /**
 	Return the string representation of this cell.
@@ -92,13 +105,7 @@ public class ComponentCell extends Cell
 	public void addComponentsToContainer(Container container)
 	{	
 		if(container==null)return;
-		Container p=c.getParent();
-		if(p!=null)
-		{
-			if(p==container)return;
-			p.remove(c);
-		}
-		container.add(c);
+		addToContainer(c,container);
 	}
 /**
 	Resizes the enclosed component to occupy the specified rectangle of the container with appropriate empty strips around it.
@@ -115,8 +122,8 @@ public class ComponentCell extends Cell
 		BoundSpring bs=getBoundSpring();
 		if(bs.isXFixed())width=bs.getPreferredWidth();	
 		if(bs.isYFixed())height=bs.getPreferredHeight();	
-		c.setBounds(new Rectangle(x+hgap,y+vgap+baselineOffset,
-				width=width-hgap*2,height=height-vgap*2-baselineOffset));
+		c.setBounds(x+hgap,y+vgap+baselineOffset,
+				width=width-hgap*2,height=height-vgap*2-baselineOffset);
 	}
 /**
 	Returns the two-dimensional spring associated with this cell.
@@ -125,7 +132,8 @@ public class ComponentCell extends Cell
 **/
 	public BoundSpring computeBoundSpring()
 	{
-		BoundSpring bs= new BoundSpring(c);
+		SizeSnapshot s=getSizeSnapshot();
+		BoundSpring bs=(s==null?new BoundSpring(c):s.getBoundSpring(c));
 		bs.setInset(2*hgap,2*vgap+baselineOffset);
 		return bs;
 	}
@@ -164,7 +172,7 @@ public class ComponentCell extends Cell
 	{
 		this.hgap=hgap;
 		this.vgap=vgap;
-		invalidate();
+		invalidatePath();
 	}
 /**
 	Returns the <i>baseline</i> of the component wrapped by this cell.
@@ -181,7 +189,22 @@ public class ComponentCell extends Cell
 **/
 	public int getBaseline()
 	{
-		
+		SizeSnapshot s=getSizeSnapshot();
+		if(s!=null)return s.getBaseline(this);
+		return computeBaseline();
+	}
+	int computeBaseline()
+	{
+		BaselineCache cache=baselineCache;
+		if(cache==null)return measureBaseline();
+		int b=cache.baseline;
+		if(b!=UNKNOWN_BASELINE)return b;
+		b=measureBaseline();
+		cache.baseline=b;
+		return b;
+	}
+	private int measureBaseline()
+	{
 		if(pagelayout.util.NamedSeparator.class.isInstance(c))
 		{
 		 return ((pagelayout.util.NamedSeparator)c).getBaseline();	
@@ -199,6 +222,60 @@ public class ComponentCell extends Cell
 	{
 		return this;
 	}
+	boolean invalidateResizedComponents()
+	{
+		BoundSpring bs=boundSpring;
+		if(bs==null)return false;
+		Dimension d=c.getPreferredSize();
+		if((Math.min(d.width,MAX)+2*hgap==bs.getPreferredWidth())&&
+			(Math.min(d.height,MAX)+2*vgap+baselineOffset==
+				bs.getPreferredHeight()))return false;
+		invalidatePath();
+		return true;
+	}
+	void copyTemplateState(Cell copy)
+	{
+		super.copyTemplateState(copy);
+		if(boundSpring!=null)copy.boundSpring=new BoundSpring(boundSpring);
+		ComponentCell c=(ComponentCell)copy;
+		if((baselineCache!=null)&&(c.baselineCache!=null)&&
+			(c.c.getClass()==this.c.getClass())&&
+			(c.baselineCache.baseline==UNKNOWN_BASELINE))
+			c.baselineCache.baseline=baselineCache.baseline;
+	}
+/**
+	Holds the cached baseline of a component, and clears it when one of
+	the properties which determine the baseline changes. There is one
+	cache for each component, kept as a client property of the 
+	component and registered once as its listener, so that it is 
+	shared by all the cells which wrap the component and does not keep
+	any of them reachable.
+**/
+	private static class BaselineCache implements PropertyChangeListener
+	{
+		private final static Set<String> PROPERTIES=
+			new HashSet<String>(Arrays.asList("font","border","text",
+			"UI","preferredSize","icon","margin","renderer","model"));
+		volatile int baseline=UNKNOWN_BASELINE;
+		static BaselineCache get(JComponent component)
+		{
+			BaselineCache cache=(BaselineCache)
+				component.getClientProperty(BaselineCache.class);
+			if(cache==null)
+			{
+				cache=new BaselineCache();
+				component.putClientProperty(BaselineCache.class,cache);
+				component.addPropertyChangeListener(cache);
+			}
+			return cache;
+		}
+		public void propertyChange(PropertyChangeEvent e)
+		{
+			String name=e.getPropertyName();
+			if((name==null)||PROPERTIES.contains(name))
+				baseline=UNKNOWN_BASELINE;
+		}
+	}
 	public Cell duplicate(ComponentDuplicator creator)
 	{
 		ComponentCell cell=new ComponentCell(
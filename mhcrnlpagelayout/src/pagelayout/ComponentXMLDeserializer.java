@@ -0,0 +1,38 @@
+/*
+	------------------------------------------------
+	ComponentXMLDeserializer.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import javax.xml.stream.*;
+/**
+	Creates the components of a layout read by 
+	{@link pagelayout.LayoutXMLReader LayoutXMLReader}. It is the
+	counterpart of {@link pagelayout.ComponentXMLSerializer 
+	ComponentXMLSerializer}.
+**/
+public interface ComponentXMLDeserializer
+{
+/**
+	Creates the component described by the element at which the
+	reader is positioned, i.e. the element written by the
+	<code>xmlserialize</code> method of the serializer. 
+
+	@param in the reader, positioned at the start of the element. 
+		On return, it must be positioned at the end of the element.
+	@return The created component.
+**/
+	public Component xmldeserialize(XMLStreamReader in) 
+		throws XMLStreamException;
+}
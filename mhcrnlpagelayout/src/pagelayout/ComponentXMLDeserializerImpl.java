@@ -0,0 +1,76 @@
+/*
+	------------------------------------------------
+	ComponentXMLDeserializerImpl.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import java.util.*;
+import javax.xml.stream.*;
+/**
+	Creates the components written by 
+	{@link pagelayout.ComponentXMLSerializerImpl 
+	ComponentXMLSerializerImpl} with the no-argument constructors of
+	their classes. A class is loaded without being initialized, and
+	is rejected unless it is a subclass of <code>Component</code>, so
+	that no other class named in a document is initialized or 
+	instantiated.
+**/
+public class ComponentXMLDeserializerImpl implements ComponentXMLDeserializer
+{
+	private HashMap<String,Class<? extends Component>> classes=
+		new HashMap<String,Class<? extends Component>>();
+	public Component xmldeserialize(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		String name=in.getAttributeValue(null,"class");
+		if(name==null)
+			throw new XMLStreamException(
+				"The class of the component is not specified",
+				in.getLocation());
+		Class<? extends Component> type=classes.get(name);
+		if(type==null)
+		{
+			Class<?> loaded;
+			try
+			{
+				loaded=Class.forName(name,false,
+					ComponentXMLDeserializerImpl.class.getClassLoader());
+			}
+			catch(ClassNotFoundException e)
+			{
+				throw new XMLStreamException(
+					"Cannot find the class "+name,in.getLocation(),e);
+			}
+			if(!Component.class.isAssignableFrom(loaded))
+				throw new XMLStreamException(
+					"The class "+name+" is not a component",
+					in.getLocation());
+			type=loaded.asSubclass(Component.class);
+			classes.put(name,type);
+		}
+		Component c;
+		try
+		{
+			c=type.getDeclaredConstructor().newInstance();
+		}
+		catch(Exception e)
+		{
+			throw new XMLStreamException(
+				"Cannot create a component of the class "+name,
+				in.getLocation(),e);
+		}
+		LayoutXMLReader.skipElement(in);
+		return c;
+	}
+}
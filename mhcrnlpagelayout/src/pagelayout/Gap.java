@@ -119,6 +119,11 @@ public class Gap extends Cell
 	{
 		return new Gap(min,pref,max,isX);
 	}
+	void copyTemplateState(Cell copy)
+	{
+		super.copyTemplateState(copy);
+		if(boundSpring!=null)copy.boundSpring=new BoundSpring(boundSpring);
+	}
 	public void xmlserialize(XMLPrintStream out, ComponentXMLSerializer c)
 	{
 		String element="Cell";
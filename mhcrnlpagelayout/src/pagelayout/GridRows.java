@@ -133,4 +133,25 @@ public class GridRows
 		}
 		return CellGrid.createCellGrid(gridRows);
 	}
+/**
+	Appends the rows created by calling the 
+	{@link pagelayout.GridRows#newRow newRow} method of this object
+	to the bottom of an existing grid, and removes them from this object,
+	so that the next batch of rows may be created with the same object.
+	@param grid the grid to which the rows are appended.
+	@see pagelayout.CellGrid#appendRows
+**/
+	public void appendTo(CellGrid grid)
+	{
+		int n=rows.size();
+		Vector<GridRow> v=new Vector<GridRow>(n);
+		for(int i=0;i<n;i++)
+		{
+			GridRow r=rows.elementAt(i);
+			if(r.size()>0)v.add(r);
+		}
+		rows.clear();
+		currentRow=null;
+		if(v.size()>0)grid.appendRows(v.toArray(new GridRow[v.size()]));
+	}
 }
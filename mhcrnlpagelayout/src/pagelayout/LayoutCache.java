@@ -0,0 +1,169 @@
+/*
+	------------------------------------------------
+	LayoutCache.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+/**
+	A <code>LayoutCache</code> holds the bounds of the components of a
+	container computed by the {@link pagelayout.PageLayout PageLayout}
+	for the most recently used sizes of the container. When the container
+	is laid out again with one of these sizes, the bounds are simply
+	copied back to the components. This makes repeated layouts of a
+	container whose cells have not changed much cheaper. 
+	<p>
+	The bounds are valid only as long as the two-dimensional spring of
+	the top level cell has not been recomputed, and all the entries are
+	discarded as soon as a different spring is seen. Since resizing the
+	container invalidates the springs of all the cells, the entries do
+	not survive a resize.
+	</p>
+**/
+class LayoutCache
+{
+	private long[] keys;
+	private int[][] entries;
+	private long[] lastUsed;
+	private int size;
+	private long clock;
+	private BoundSpring version;
+	private Component[] components;
+	private long hits, misses;
+/**
+	Creates a cache which holds the bounds for at most the given
+	number of sizes.
+
+	@param capacity the maximum number of sizes.
+**/
+	LayoutCache(int capacity)
+	{
+		keys=new long[capacity];
+		entries=new int[capacity][];
+		lastUsed=new long[capacity];
+	}
+/**
+	Sets the bounds of the components of the container to the bounds
+	recorded for the given size, if any.
+
+	@param parent the container.
+	@param width the width of the area in which the cells are laid out.
+	@param height the height of the area in which the cells are laid out.
+	@param spring the current spring of the top level cell.
+
+	@return <code>true</code> if the bounds were found in the cache,
+	<code>false</code> otherwise.
+**/
+	boolean replay(Container parent, int width, int height, 
+			BoundSpring spring)
+	{
+		if(spring!=version)
+		{
+			clear();
+			version=spring;
+		}
+		int slot=find(key(width,height));
+		if((slot<0)||!isCurrent(parent))
+		{
+			misses++;
+			return false;
+		}
+		hits++;
+		lastUsed[slot]=++clock;
+		int[] bounds=entries[slot];
+		for(int i=0,k=0;i<components.length;i++,k+=4)
+			components[i].setBounds(bounds[k],bounds[k+1],
+					bounds[k+2],bounds[k+3]);
+		return true;
+	}
+/**
+	Records the current bounds of the components of the container for
+	the given size. The array of the least recently used size is 
+	reused when the cache is full.
+
+	@param parent the container.
+	@param width the width of the area in which the cells are laid out.
+	@param height the height of the area in which the cells are laid out.
+**/
+	void record(Container parent, int width, int height)
+	{
+		if(!isCurrent(parent))
+		{
+			size=0;
+			components=parent.getComponents();
+		}
+		long key=key(width,height);
+		int slot=find(key);
+		if(slot<0)
+		{
+			if(size<keys.length)slot=size++;
+			else
+			{
+				slot=0;
+				for(int i=1;i<size;i++)
+					if(lastUsed[i]<lastUsed[slot])slot=i;
+			}
+			keys[slot]=key;
+		}
+		int n=components.length;
+		int[] bounds=entries[slot];
+		if((bounds==null)||(bounds.length!=4*n))
+			bounds=entries[slot]=new int[4*n];
+		for(int i=0,k=0;i<n;i++,k+=4)
+		{
+			Component c=components[i];
+			bounds[k]=c.getX();
+			bounds[k+1]=c.getY();
+			bounds[k+2]=c.getWidth();
+			bounds[k+3]=c.getHeight();
+		}
+		lastUsed[slot]=++clock;
+	}
+/**
+	Discards all the entries of the cache. Their arrays are kept, to
+	be reused by the entries recorded later.
+**/
+	void clear()
+	{
+		size=0;
+		components=null;
+		version=null;
+	}
+	long getHits()
+	{
+		return hits;
+	}
+	long getMisses()
+	{
+		return misses;
+	}
+	private int find(long key)
+	{
+		for(int i=0;i<size;i++)
+			if(keys[i]==key)return i;
+		return -1;
+	}
+	private boolean isCurrent(Container parent)
+	{
+		if(components==null)return false;
+		int n=components.length;
+		if(parent.getComponentCount()!=n)return false;
+		for(int i=0;i<n;i++)
+			if(parent.getComponent(i)!=components[i])return false;
+		return true;
+	}
+	private static long key(int width, int height)
+	{
+		return (((long)width)<<32)|(height&0xffffffffL);
+	}
+}
@@ -0,0 +1,182 @@
+/*
+	------------------------------------------------
+	LayoutMetrics.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.lang.management.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+/**
+	<code>LayoutMetrics</code> collects the statistics of the layouts done
+	by a {@link pagelayout.PageLayout PageLayout}: the number of times 
+	the container is laid out and its sizes are computed, the time
+	spent in computing the springs of the cells and in setting the bounds
+	of the components, the number of springs computed for each type of
+	cell, and the depth and the width of the tree of cells.
+	<p>
+	The metrics are collected only after they are enabled by calling
+	the {@link pagelayout.PageLayout#enableMetrics enableMetrics} method
+	of the layout manager. They can be published as a JMX MBean by 
+	calling the {@link pagelayout.LayoutMetrics#register register} 
+	method, e.g.
+	</p>
+<pre>
+	PageLayout layout=topLevelCell.createLayout(container);
+	layout.enableMetrics().register("OrderForm");
+</pre>
+**/
+public class LayoutMetrics implements LayoutMetricsMBean
+{
+	private final static int ROW=0, COLUMN=1, GRID=2, CARD=3, 
+				COMPONENT=4, OTHER=5;
+	private AtomicLongArray springCounts;
+	private volatile long layoutCount, preferredSizeCount, minimumSizeCount;
+	private volatile long springTime, boundsTime;
+	private volatile int treeDepth, maximumChildren;
+	private volatile String widestCellName;
+	private ObjectName objectName;
+	LayoutMetrics()
+	{
+		springCounts=new AtomicLongArray(6);
+		widestCellName="";
+	}
+/**
+	Registers this object with the platform MBean server.
+
+	@param name the value of the <code>name</code> key of the object name
+	of the MBean, whose domain is <code>pagelayout</code> and whose
+	<code>type</code> is <code>PageLayout</code>.
+
+	@throws JMException if the MBean could not be registered.
+**/
+	public void register(String name) throws JMException
+	{
+		ObjectName on=new ObjectName("pagelayout:type=PageLayout,name="+
+				ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this,on);
+		objectName=on;
+	}
+/**
+	Removes this object from the platform MBean server, if it was
+	registered.
+
+	@throws JMException if the MBean could not be unregistered.
+**/
+	public void unregister() throws JMException
+	{
+		if(objectName==null)return;
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+				objectName);
+		objectName=null;
+	}
+	public long getLayoutCount(){ return layoutCount;}
+	public long getPreferredSizeCount(){ return preferredSizeCount;}
+	public long getMinimumSizeCount(){ return minimumSizeCount;}
+	public long getSpringTime(){ return springTime;}
+	public long getBoundsTime(){ return boundsTime;}
+	public long getRowSpringCount(){ return springCounts.get(ROW);}
+	public long getColumnSpringCount(){ return springCounts.get(COLUMN);}
+	public long getGridSpringCount(){ return springCounts.get(GRID);}
+	public long getCardSpringCount(){ return springCounts.get(CARD);}
+	public long getComponentSpringCount()
+	{
+		return springCounts.get(COMPONENT);
+	}
+	public long getOtherSpringCount(){ return springCounts.get(OTHER);}
+	public int getTreeDepth(){ return treeDepth;}
+	public int getMaximumChildren(){ return maximumChildren;}
+	public String getWidestCellName(){ return widestCellName;}
+	public void reset()
+	{
+		layoutCount=preferredSizeCount=minimumSizeCount=0;
+		springTime=boundsTime=0;
+		for(int i=0;i<springCounts.length();i++)springCounts.set(i,0);
+	}
+	void layoutDone(long boundsNanos)
+	{
+		layoutCount++;
+		boundsTime+=boundsNanos;
+	}
+	void sizeDone(boolean isPreferred)
+	{
+		if(isPreferred)preferredSizeCount++;
+		else minimumSizeCount++;
+	}
+	void springDone(long springNanos)
+	{
+		springTime+=springNanos;
+	}
+/**
+	Called by a cell whenever its spring is computed. It may be called
+	from the threads that compute the springs in parallel. Since the
+	springs of the children of a cell are computed before its own 
+	spring, the depth of the subtree of the cell is found from the
+	depths recorded for its children, so that the shape of the tree is
+	updated without traversing it again.
+
+	@param cell the cell.
+**/
+	void springComputed(Cell cell)
+	{
+		int type=OTHER;
+		if(cell instanceof Row)type=ROW;
+		else if(cell instanceof Column)type=COLUMN;
+		else if(cell instanceof CellGrid)type=GRID;
+		else if(cell instanceof CardCell)type=CARD;
+		else if(cell instanceof ComponentCell)type=COMPONENT;
+		springCounts.incrementAndGet(type);
+		int n=cell.numberOfChildren();
+		int depth=0;
+		for(int i=0;i<n;i++)
+		{
+			Cell c=cell.getChildAt(i);
+			if((c!=null)&&(c.subtreeDepth>depth))depth=c.subtreeDepth;
+		}
+		cell.subtreeDepth=depth+1;
+		if(n>maximumChildren)setWidest(cell,n);
+		if(cell.getParent()==null)treeDepth=cell.subtreeDepth;
+	}
+	private synchronized void setWidest(Cell cell, int n)
+	{
+		if(n<=maximumChildren)return;
+		maximumChildren=n;
+		widestCellName=cell.getName();
+	}
+/**
+	Records the shape of the tree of cells with the given root, when
+	the metrics are enabled.
+
+	@param root the top level cell.
+**/
+	void measureTree(Cell root)
+	{
+		maximumChildren=0;
+		widestCellName="";
+		treeDepth=measure(root);
+	}
+	private int measure(Cell cell)
+	{
+		if(cell==null)return 0;
+		int n=cell.numberOfChildren();
+		if(n>maximumChildren)
+		{
+			maximumChildren=n;
+			widestCellName=cell.getName();
+		}
+		int depth=0;
+		for(int i=0;i<n;i++)
+			depth=Math.max(depth,measure(cell.getChildAt(i)));
+		return cell.subtreeDepth=depth+1;
+	}
+}
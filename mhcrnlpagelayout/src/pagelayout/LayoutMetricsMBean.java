@@ -0,0 +1,92 @@
+/*
+	------------------------------------------------
+	LayoutMetricsMBean.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+/**
+	The management interface of {@link pagelayout.LayoutMetrics 
+	LayoutMetrics}, through which the metrics of a 
+	{@link pagelayout.PageLayout PageLayout} are published as a JMX MBean.
+**/
+public interface LayoutMetricsMBean
+{
+/**
+	@return The number of calls to the <code>layoutContainer</code> method.
+**/
+	public long getLayoutCount();
+/**
+	@return The number of calls to the <code>preferredLayoutSize</code> 
+	method.
+**/
+	public long getPreferredSizeCount();
+/**
+	@return The number of calls to the <code>minimumLayoutSize</code> 
+	method.
+**/
+	public long getMinimumSizeCount();
+/**
+	@return The total time, in nanoseconds, spent in computing the
+	springs of the cells.
+**/
+	public long getSpringTime();
+/**
+	@return The total time, in nanoseconds, spent in setting the bounds
+	of the components.
+**/
+	public long getBoundsTime();
+/**
+	@return The number of springs computed for the rows.
+**/
+	public long getRowSpringCount();
+/**
+	@return The number of springs computed for the columns.
+**/
+	public long getColumnSpringCount();
+/**
+	@return The number of springs computed for the grids.
+**/
+	public long getGridSpringCount();
+/**
+	@return The number of springs computed for the card cells.
+**/
+	public long getCardSpringCount();
+/**
+	@return The number of springs computed for the component cells.
+**/
+	public long getComponentSpringCount();
+/**
+	@return The number of springs computed for all other cells.
+**/
+	public long getOtherSpringCount();
+/**
+	@return The depth of the tree of cells, i.e. the number of cells
+	on the longest path from the top level cell to a leaf.
+**/
+	public int getTreeDepth();
+/**
+	@return The largest number of children of a cell in the tree, 
+	among the cells whose springs have been computed since the metrics
+	were enabled.
+**/
+	public int getMaximumChildren();
+/**
+	@return The name of the cell with the largest number of children
+	returned by {@link #getMaximumChildren getMaximumChildren}.
+**/
+	public String getWidestCellName();
+/**
+	Sets all the counters and times to zero.
+**/
+	public void reset();
+}
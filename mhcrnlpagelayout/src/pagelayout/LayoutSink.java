@@ -0,0 +1,38 @@
+/*
+	------------------------------------------------
+	LayoutSink.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+/**
+	A <code>LayoutSink</code> receives the rectangles computed for the 
+	{@link pagelayout.Measurable Measurable} items of a tree of cells 
+	when the tree is laid out. It plays the role of the
+	<code>setBounds</code> method of the components for the items which
+	are not components.
+**/
+public interface LayoutSink
+{
+/**
+	Called when the rectangle in which an item is to be placed has 
+	been computed.
+
+	@param item the item.
+	@param x the x-coordinate of the top left of the rectangle.
+	@param y the y-coordinate of the top left of the rectangle.
+	@param width the width of the rectangle.
+	@param height the height of the rectangle.
+**/
+	public void setBounds(Measurable item, int x, int y, 
+			int width, int height);
+}
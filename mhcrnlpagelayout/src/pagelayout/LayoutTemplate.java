@@ -0,0 +1,177 @@
+/*
+	------------------------------------------------
+	LayoutTemplate.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.util.*;
+/**
+	A <code>LayoutTemplate</code> creates copies of a prototype tree of
+	cells, e.g. of a form which is opened many times. The springs of
+	the prototype are computed once, when the template is created, and
+	each copy, created by the {@link pagelayout.Cell#duplicate duplicate}
+	method of the prototype, receives the springs measured for the 
+	components and gaps of the prototype, together with the names, 
+	the baselines and the fixed size flags of the cells. When
+	the layout manager of a copy is created, the springs are not
+	invalidated, and till the container has been laid out once, the
+	components are not measured again in full. 
+
+	<p>
+	Instead, in each pass of the layout manager till then, only the
+	preferred size of each component is compared with the one at 
+	which its spring was measured, and the springs on the paths of the
+	cells whose components differ are computed again. The components
+	of a copy, e.g. the fields of a form, may thus be filled before or
+	after the layout manager of the copy is created, without any 
+	notice to the layout manager.
+	</p>
+
+	<p>
+	The copies which are no longer needed may be returned to the 
+	template by {@link pagelayout.LayoutTemplate#release release}, to be
+	handed out again by 
+	{@link pagelayout.LayoutTemplate#newInstance newInstance}. Since
+	the state of their components may have changed, their springs are
+	computed afresh when they are reused.
+	</p>
+
+	The templates may be registered by name with 
+	{@link pagelayout.LayoutTemplate#register register}.
+**/
+public class LayoutTemplate
+{
+	private static Hashtable<String,LayoutTemplate> templates=
+		new Hashtable<String,LayoutTemplate>();
+	private Cell prototype;
+	private ComponentDuplicator duplicator;
+	private Vector<Cell> pool;
+	private int maxPoolSize;
+/**
+	Creates a template which uses 
+	{@link pagelayout.SwingComponentDuplicator SwingComponentDuplicator}
+	to copy the components.
+
+	@param prototype the top level cell of the prototype. It should not
+		be laid out in a container.
+**/
+	public LayoutTemplate(Cell prototype)
+	{
+		this(prototype,new SwingComponentDuplicator());
+	}
+/**
+	Creates a template.
+
+	@param prototype the top level cell of the prototype. It should not
+		be laid out in a container.
+	@param duplicator the object used to copy the components.
+**/
+	public LayoutTemplate(Cell prototype, ComponentDuplicator duplicator)
+	{
+		this.prototype=prototype;
+		this.duplicator=duplicator;
+		pool=new Vector<Cell>();
+		maxPoolSize=8;
+		prototype.getBoundSpring();
+	}
+/**
+	Returns a copy of the prototype, which is either one of the copies
+	returned to the template, or a new one.
+
+	@return The top level cell of the copy.
+**/
+	public Cell newInstance()
+	{
+		Cell cell=null;
+		synchronized(pool)
+		{
+			int n=pool.size();
+			if(n>0)cell=pool.remove(n-1);
+		}
+		if(cell!=null)
+		{
+			cell.invalidate();
+			return cell;
+		}
+		cell=prototype.duplicate(duplicator);
+		prototype.copyTemplateState(cell);
+		cell.templateInstance=true;
+		return cell;
+	}
+/**
+	Returns a copy which is no longer needed to the template. Its 
+	components are removed from their container, and the copy is 
+	kept for reuse if the number of copies kept by the template is 
+	less than the maximum.
+
+	@param instance the top level cell of the copy.
+**/
+	public void release(Cell instance)
+	{
+		instance.removeAllComponents(null);
+		synchronized(pool)
+		{
+			if(pool.size()<maxPoolSize)pool.add(instance);
+		}
+	}
+/**
+	Sets the maximum number of copies kept for reuse. The default is 8.
+
+	@param n the maximum number of copies.
+**/
+	public void setMaxPoolSize(int n)
+	{
+		synchronized(pool)
+		{
+			maxPoolSize=n;
+			while(pool.size()>n)pool.remove(pool.size()-1);
+		}
+	}
+/**
+	@return The top level cell of the prototype.
+**/
+	public Cell getPrototype()
+	{
+		return prototype;
+	}
+/**
+	Registers a template with a name.
+
+	@param name the name of the template.
+	@param template the template.
+**/
+	public static void register(String name, LayoutTemplate template)
+	{
+		templates.put(name,template);
+	}
+/**
+	Returns the template registered with a name.
+
+	@param name the name of the template.
+	@return The template, or <code>null</code> if none has been 
+		registered with the name.
+**/
+	public static LayoutTemplate getTemplate(String name)
+	{
+		return templates.get(name);
+	}
+/**
+	Removes the template registered with a name.
+
+	@param name the name of the template.
+**/
+	public static void unregister(String name)
+	{
+		templates.remove(name);
+	}
+}
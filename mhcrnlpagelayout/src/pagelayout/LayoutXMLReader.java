@@ -0,0 +1,370 @@
+/*
+	------------------------------------------------
+	LayoutXMLReader.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import java.io.*;
+import javax.swing.*;
+import javax.xml.stream.*;
+/**
+	Reads a tree of cells from the XML written by the 
+	{@link pagelayout.Cell#xmlserialize xmlserialize} methods of 
+	the cells. The document is read with a streaming (StAX) parser,
+	and the cells are created as their elements are encountered, 
+	without building a DOM. The components of the cells are created
+	by a {@link pagelayout.ComponentXMLDeserializer 
+	ComponentXMLDeserializer}, which should match the
+	{@link pagelayout.ComponentXMLSerializer ComponentXMLSerializer}
+	used to write the document.
+
+	<p>
+	The cells of the types {@link pagelayout.Row Row}, 
+	{@link pagelayout.Column Column}, {@link pagelayout.CellGrid CellGrid},
+	{@link pagelayout.SparseCellGrid SparseCellGrid},
+	{@link pagelayout.Gap Gap}, {@link pagelayout.ComponentCell
+	ComponentCell}, {@link pagelayout.PanelCell PanelCell},
+	{@link pagelayout.CardCell CardCell} and 
+	{@link pagelayout.TabbedPaneCell TabbedPaneCell} can be read.
+	The links between the sizes of the components are not part of
+	the document, and are not restored.
+	</p>
+
+	A reader may be used for any number of documents, but not by
+	more than one thread at a time.
+**/
+public class LayoutXMLReader
+{
+	private XMLInputFactory factory;
+	private ComponentXMLDeserializer deserializer;
+/**
+	Creates a reader which uses 
+	{@link pagelayout.ComponentXMLDeserializerImpl 
+	ComponentXMLDeserializerImpl} to create the components.
+**/
+	public LayoutXMLReader()
+	{
+		this(new ComponentXMLDeserializerImpl());
+	}
+/**
+	Creates a reader which uses the specified deserializer to create
+	the components.
+
+	@param deserializer the deserializer of the components.
+**/
+	public LayoutXMLReader(ComponentXMLDeserializer deserializer)
+	{
+		this.deserializer=deserializer;
+		factory=null;
+	}
+	private XMLInputFactory getFactory()
+	{
+		if(factory==null)
+		{
+			factory=XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD,
+					Boolean.FALSE);
+			factory.setProperty(
+				XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+		}
+		return factory;
+	}
+/**
+	Reads the tree of cells from a stream.
+
+	@param in the stream.
+	@return The top level cell of the tree.
+**/
+	public Cell read(InputStream in) throws XMLStreamException
+	{
+		XMLStreamReader reader=getFactory().createXMLStreamReader(in);
+		try
+		{
+			return read(reader);
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+/**
+	Reads the tree of cells from a character stream.
+
+	@param in the character stream.
+	@return The top level cell of the tree.
+**/
+	public Cell read(Reader in) throws XMLStreamException
+	{
+		XMLStreamReader reader=getFactory().createXMLStreamReader(in);
+		try
+		{
+			return read(reader);
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+/**
+	Reads the tree of cells from the next <code>Cell</code> element of 
+	a StAX reader. On return, the reader is positioned at the end of 
+	the element.
+
+	@param in the reader.
+	@return The top level cell of the tree.
+**/
+	public Cell read(XMLStreamReader in) throws XMLStreamException
+	{
+		if(!in.isStartElement())in.nextTag();
+		return readCell(in);
+	}
+	private Cell readCell(XMLStreamReader in) throws XMLStreamException
+	{
+		require(in,"Cell");
+		String type=in.getAttributeValue(null,"TypeName");
+		if(type==null)return readWrappedCell(in);
+		if(type.equals("Row"))return readCellContainer(in,true);
+		if(type.equals("Column"))return readCellContainer(in,false);
+		if(type.equals("Grid"))return readGrid(in);
+		if(type.equals("SparseGrid"))return readSparseGrid(in);
+		if(type.equals("HGap"))return readGap(in,true);
+		if(type.equals("VGap"))return readGap(in,false);
+		if(type.equals("ComponentCell"))return readComponentCell(in);
+		if(type.equals("PanelCell"))return readPanelCell(in);
+		if(type.equals("CardCell"))return readCardCell(in);
+		if(type.equals("TabbedPaneCell"))return readTabbedPaneCell(in);
+		throw new XMLStreamException("Cells of the type "+type+
+				" cannot be read",in.getLocation());
+	}
+	private Cell readWrappedCell(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		in.nextTag();
+		Cell cell=readCell(in);
+		in.nextTag();
+		return cell;
+	}
+	private Cell readCellContainer(XMLStreamReader in, boolean isRow)
+		throws XMLStreamException
+	{
+		int halign=intAttribute(in,"xalignment",Cell.NO_ALIGNMENT);
+		int valign=intAttribute(in,"yalignment",Cell.NO_ALIGNMENT);
+		CellContainer c=(isRow?new Row(halign,valign):
+				new Column(halign,valign,new Cell[0]));
+		readName(in,c);
+		while(in.nextTag()==XMLStreamConstants.START_ELEMENT)
+			c.add(readCell(in));
+		return c;
+	}
+	private Cell readGrid(XMLStreamReader in) throws XMLStreamException
+	{
+		int nr=intAttribute(in,"rows",0);
+		int nc=intAttribute(in,"columns",0);
+		String name=in.getAttributeValue(null,"name");
+		Cell[][] cells=new Cell[nr][nc];
+		int[][] halign=new int[nr][nc];
+		int[][] valign=new int[nr][nc];
+		int k=0;
+		while(in.nextTag()==XMLStreamConstants.START_ELEMENT)
+		{
+			require(in,"GridElement");
+			if(k>=nr*nc)
+				throw new XMLStreamException(
+					"Too many elements in the grid",
+					in.getLocation());
+			int i=k/nc;
+			int j=k%nc;
+			k++;
+			String type=in.getAttributeValue(null,"type");
+			if("draw".equals(type))
+			{
+				halign[i][j]=intAttribute(in,"xalignment",
+						Cell.NO_ALIGNMENT);
+				valign[i][j]=intAttribute(in,"yalignment",
+						Cell.NO_ALIGNMENT);
+				in.nextTag();
+				cells[i][j]=readCell(in);
+				in.nextTag();
+				continue;
+			}
+			if("hspan".equals(type))cells[i][j]=CellGrid.HSPANCELL;
+			else if("vspan".equals(type))cells[i][j]=CellGrid.VSPANCELL;
+			skipElement(in);
+		}
+		CellGrid grid=CellGrid.createCellGrid(cells);
+		for(int i=0;i<nr;i++)
+			for(int j=0;j<nc;j++)
+				if(cells[i][j]!=null)
+					grid.setAlignment(i,j,halign[i][j],
+							valign[i][j]);
+		if((name!=null)&&(name.length()>0))grid.setName(name);
+		return grid;
+	}
+	private Cell readSparseGrid(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		SparseCellGrid grid=new SparseCellGrid(
+				intAttribute(in,"rows",0),
+				intAttribute(in,"columns",0));
+		grid.setViewportAware(
+			"true".equals(in.getAttributeValue(null,"viewportAware")));
+		readName(in,grid);
+		while(in.nextTag()==XMLStreamConstants.START_ELEMENT)
+		{
+			require(in,"GridElement");
+			int row=intAttribute(in,"row",0);
+			int column=intAttribute(in,"column",0);
+			int hspan=intAttribute(in,"hspan",1);
+			int vspan=intAttribute(in,"vspan",1);
+			int halign=intAttribute(in,"xalignment",Cell.NO_ALIGNMENT);
+			int valign=intAttribute(in,"yalignment",Cell.NO_ALIGNMENT);
+			in.nextTag();
+			grid.add(row,column,readCell(in),hspan,vspan);
+			grid.setAlignment(row,column,halign,valign);
+			in.nextTag();
+		}
+		return grid;
+	}
+	private Cell readGap(XMLStreamReader in, boolean isHorizontal)
+		throws XMLStreamException
+	{
+		Gap gap=new Gap(intAttribute(in,"min",0),
+				intAttribute(in,"pref",0),
+				intAttribute(in,"max",0),isHorizontal);
+		skipElement(in);
+		return gap;
+	}
+	private Cell readComponentCell(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		int hgap=intAttribute(in,"xgap",ComponentCell.HGAP);
+		int vgap=intAttribute(in,"ygap",ComponentCell.VGAP);
+		int offset=intAttribute(in,"baselineoffset",0);
+		in.nextTag();
+		Component c=readComponent(in);
+		in.nextTag();
+		ComponentCell cell=new ComponentCell(c,hgap,vgap);
+		cell.setBaselineOffset(offset);
+		return cell;
+	}
+	private Cell readPanelCell(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		String name=in.getAttributeValue(null,"name");
+		int hgap=intAttribute(in,"xgap",ComponentCell.HGAP);
+		int vgap=intAttribute(in,"ygap",ComponentCell.VGAP);
+		in.nextTag();
+		Cell cell=readCell(in);
+		in.nextTag();
+		Component c=readComponent(in);
+		if(!(c instanceof Container))
+			throw new XMLStreamException(
+				"The component of a PanelCell must be a Container",
+				in.getLocation());
+		in.nextTag();
+		PanelCell p=new PanelCell((Container)c,cell);
+		p.setContainerGaps(hgap,vgap);
+		if((name!=null)&&(name.length()>0))p.setName(name);
+		return p;
+	}
+	private Cell readCardCell(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		CardCell card=new CardCell();
+		readName(in,card);
+		while(in.nextTag()==XMLStreamConstants.START_ELEMENT)
+		{
+			require(in,"KeyCellPair");
+			String key=in.getAttributeValue(null,"Key");
+			in.nextTag();
+			card.add(key,readCell(in));
+			in.nextTag();
+		}
+		return card;
+	}
+	private Cell readTabbedPaneCell(XMLStreamReader in) 
+		throws XMLStreamException
+	{
+		String name=in.getAttributeValue(null,"name");
+		in.nextTag();
+		Component c=readComponent(in);
+		if(!(c instanceof JTabbedPane))
+			throw new XMLStreamException(
+				"The component of a TabbedPaneCell must be a "+
+				"JTabbedPane",in.getLocation());
+		TabbedPaneCell tabs=new TabbedPaneCell((JTabbedPane)c);
+		while(in.nextTag()==XMLStreamConstants.START_ELEMENT)
+		{
+			require(in,"Tab");
+			String title=in.getAttributeValue(null,"name");
+			in.nextTag();
+			if(in.getLocalName().equals("Cell"))
+				tabs.add(title,readCell(in));
+			else tabs.add(title,readComponent(in));
+			in.nextTag();
+		}
+		if((name!=null)&&(name.length()>0))tabs.setName(name);
+		return tabs;
+	}
+	private Component readComponent(XMLStreamReader in)
+		throws XMLStreamException
+	{
+		if(!in.isStartElement())
+			throw new XMLStreamException("A component was expected",
+				in.getLocation());
+		return deserializer.xmldeserialize(in);
+	}
+	private static void readName(XMLStreamReader in, Cell cell)
+	{
+		String name=in.getAttributeValue(null,"name");
+		if((name!=null)&&(name.length()>0))cell.setName(name);
+	}
+	private static int intAttribute(XMLStreamReader in, String name, 
+		int defaultValue) throws XMLStreamException
+	{
+		String value=in.getAttributeValue(null,name);
+		if(value==null)return defaultValue;
+		try
+		{
+			return Integer.parseInt(value.trim());
+		}
+		catch(NumberFormatException e)
+		{
+			throw new XMLStreamException("The value of "+name+
+				" is not an integer: "+value,in.getLocation(),e);
+		}
+	}
+	private static void require(XMLStreamReader in, String element)
+		throws XMLStreamException
+	{
+		if(!in.isStartElement()||!in.getLocalName().equals(element))
+			throw new XMLStreamException("The element "+element+
+				" was expected",in.getLocation());
+	}
+/**
+	Moves the reader from the start of an element to its end, 
+	skipping the children of the element.
+**/
+	static void skipElement(XMLStreamReader in) throws XMLStreamException
+	{
+		int depth=1;
+		while(depth>0)
+		{
+			int event=in.next();
+			if(event==XMLStreamConstants.START_ELEMENT)depth++;
+			else if(event==XMLStreamConstants.END_ELEMENT)depth--;
+		}
+	}
+}
@@ -1,27 +1,44 @@
 package pagelayout;
-import java.io.PrintStream;
-import java.io.FileOutputStream;
+import java.io.File;
 import java.util.Hashtable;
 
 public class LoggingManager
 {
-		private PrintStream ps;
+		private volatile AsyncLogWriter writer;
 		private Hashtable<String, Logger> loggers=
 			new Hashtable<String,Logger>();
 		private static LoggingManager instance;
+		private static String fileName="loginfo.log";
+		private static int capacity=8192;
+		private static boolean blockWhenFull=false;
+		private static long maxFileSize=10L*1024*1024;
+		private static int maxFiles=5;
 		private LoggingManager()
+		{
+			open();
+			Runtime.getRuntime().addShutdownHook(new Thread()
+			{
+				public void run()
+				{
+					AsyncLogWriter w=writer;
+					if(w!=null)w.close();
+				}
+			});
+		}
+		private void open()
 		{
 		   try
 		   {
-			ps= new
-				PrintStream(new FileOutputStream(
-					"loginfo.log"));
-			return;
+			writer=new AsyncLogWriter(new File(fileName),capacity,
+				blockWhenFull,maxFileSize,maxFiles);
+		   }
+		   catch(Exception e)
+		   {
+			writer=null;
+			e.printStackTrace();
 		   }
-		   catch(Exception e){e.printStackTrace();}
-		   System.exit(1);
 		}
-		private static LoggingManager getInstance()
+		private static synchronized LoggingManager getInstance()
 		{
 			if(instance==null)
 			{
@@ -29,6 +46,39 @@ public class LoggingManager
 			}
 			return instance;
 		}
+		/*
+			Sets the file and the policies used by the log writer.
+			The messages are handed to a writer thread through a 
+			ring buffer with the given capacity. When the buffer is
+			full, a message is either dropped, or the caller waits
+			till there is room for it. The file is rotated to 
+			fileName.1, ..., fileName.maxFiles when its size would
+			exceed maxFileSize; a non-positive maxFileSize disables
+			the rotation. If the file cannot be opened, the messages
+			are discarded.
+		*/
+		public static synchronized void configure(String fileName, 
+				int capacity, boolean blockWhenFull, long maxFileSize, 
+				int maxFiles)
+		{
+			LoggingManager.fileName=fileName;
+			LoggingManager.capacity=capacity;
+			LoggingManager.blockWhenFull=blockWhenFull;
+			LoggingManager.maxFileSize=maxFileSize;
+			LoggingManager.maxFiles=maxFiles;
+			if(instance!=null)
+			{
+				AsyncLogWriter w=instance.writer;
+				instance.writer=null;
+				if(w!=null)w.close();
+				instance.open();
+			}
+		}
+		public static long getDroppedCount()
+		{
+			AsyncLogWriter w=getInstance().writer;
+			return w==null?0:w.getDroppedCount();
+		}
 		public class LoggerImpl implements Logger
 		{
 			private String name;
@@ -38,21 +88,19 @@ public class LoggingManager
 			}
 			public void info(String info, String... messages )
 			{
-				synchronized(ps)
+				AsyncLogWriter w=writer;
+				if(w==null)return;
+				StringBuilder sb=new StringBuilder();
+				sb.append(name);
+				sb.append(":");
+				sb.append(":");
+				sb.append(info);
+				for(String p:messages)
 				{
-					ps.print(name);
-					ps.print(":");
-					ps.print(":");
-					ps.print(info);
-					for(String p:messages)
-					{
-						ps.print(" ");
-						ps.print(p);
-					}
-					ps.println();
-					ps.flush();
+					sb.append(" ");
+					sb.append(p);
 				}
-			
+				w.offer(sb.toString());
 			}
 		}
 		public static Logger getLogger(Class cl)
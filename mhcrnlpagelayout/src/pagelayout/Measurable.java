@@ -0,0 +1,58 @@
+/*
+	------------------------------------------------
+	Measurable.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+/**
+	A <code>Measurable</code> is an item, other than a component, whose
+	minimum, preferred and maximum sizes are known, and which can be laid
+	out by wrapping it in a {@link pagelayout.MeasurableCell MeasurableCell}.
+	Trees of cells which contain only such items, gaps, and the 
+	rows, columns and grids of these, can be laid out without any
+	container or component, for example to compute the layout of a
+	form on a server.
+**/
+public interface Measurable
+{
+/**
+	Returns the minimum width of the item.
+	@return The minimum width of the item.
+**/
+	public int getMinimumWidth();
+/**
+	Returns the minimum height of the item.
+	@return The minimum height of the item.
+**/
+	public int getMinimumHeight();
+/**
+	Returns the preferred width of the item.
+	@return The preferred width of the item.
+**/
+	public int getPreferredWidth();
+/**
+	Returns the preferred height of the item.
+	@return The preferred height of the item.
+**/
+	public int getPreferredHeight();
+/**
+	Returns the maximum width of the item.
+	@return The maximum width of the item.
+**/
+	public int getMaximumWidth();
+/**
+	Returns the maximum height of the item.
+	@return The maximum height of the item.
+**/
+	public int getMaximumHeight();
+}
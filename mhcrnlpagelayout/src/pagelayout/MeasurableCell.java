@@ -0,0 +1,122 @@
+/*
+	------------------------------------------------
+	MeasurableCell.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import static java.lang.Math.*;
+/**
+	A <code>MeasurableCell</code> wraps an item which is not a component,
+	but whose sizes are known, in the same way as a 
+	{@link pagelayout.ComponentCell ComponentCell} wraps a component. 
+	When the cell is laid out, the rectangle computed for the item is 
+	passed to a {@link pagelayout.LayoutSink LayoutSink}.
+	<p>
+	A tree of cells can then be laid out without any AWT components by
+	calling the {@link pagelayout.Cell#layoutTree layoutTree} method of
+	its top level cell, as in the following example, which places two
+	items side by side.
+	</p>
+<pre>
+	LayoutSink sink=new LayoutSink()
+	{
+		public void setBounds(Measurable item, int x, int y, 
+				int width, int height)
+		{
+			System.out.println(item+" "+x+" "+y+" "+width+" "+height);
+		}
+	};
+	Row row=new Row(new MeasurableCell(label,sink),
+			new MeasurableCell(field,sink));
+	BoundSpring spring=row.getBoundSpring();
+	row.layoutTree(0,0,spring.getPreferredWidth(),
+			spring.getPreferredHeight());
+</pre>
+**/
+public class MeasurableCell extends Cell
+{
+	private Measurable item;
+	private LayoutSink sink;
+/**
+	Creates a cell for the given item.
+
+	@param item the item to be laid out.
+	@param sink the object which receives the rectangle computed for
+	the item.
+**/
+	public MeasurableCell(Measurable item, LayoutSink sink)
+	{
+		this.item=item;
+		this.sink=sink;
+	}
+/**
+	Returns the item that this object wraps.
+
+	@return The item enclosed within this cell.
+**/
+	public Measurable getItem()
+	{
+		return item;
+	}
+/**
+	Returns the two-dimensional spring associated with this cell, which
+	is determined by the sizes of the item.
+
+	@return The two-dimensional spring associated with this cell.
+**/
+	public BoundSpring computeBoundSpring()
+	{
+		return new BoundSpring(
+			min(item.getMinimumWidth(),Cell.MAX),
+			min(item.getPreferredWidth(),Cell.MAX),
+			min(item.getMaximumWidth(),Cell.MAX),
+			min(item.getMinimumHeight(),Cell.MAX),
+			min(item.getPreferredHeight(),Cell.MAX),
+			min(item.getMaximumHeight(),Cell.MAX),false);
+	}
+/**
+	Passes the rectangle in which the item is to be placed to the
+	{@link pagelayout.LayoutSink LayoutSink} of this cell. As for
+	a component, the width or the height of the rectangle is reduced 
+	to the preferred width or height if the item is not allowed
+	to stretch.
+
+	@param x the x-coordinate of the top left of the rectangle.
+	@param y the y-coordinate of the top left of the rectangle.
+	@param width the width of the rectangle.
+	@param height the height of the rectangle.
+**/
+	protected void setBounds(int x, int y, int width, int height)
+	{
+		BoundSpring bs=getBoundSpring();
+		if(bs.isXFixed())width=bs.getPreferredWidth();	
+		if(bs.isYFixed())height=bs.getPreferredHeight();	
+		sink.setBounds(item,x,y,width,height);
+	}
+	public boolean isComponentCell()
+	{
+		return false;
+	}
+	public Cell duplicate(ComponentDuplicator c)
+	{
+		return new MeasurableCell(item,sink);
+	}
+	public void xmlserialize(XMLPrintStream out, ComponentXMLSerializer c)
+	{
+		String element="Cell";
+		out.beginElement(element);
+		out.addAttribute("TypeName","MeasurableCell");
+		out.addAttribute("name",getName());
+		out.endElement(element);
+	}
+}
@@ -137,6 +137,14 @@ public class PageLayout implements LayoutManager, LayoutManager2
 	private int vgap, hgap;
 	private static final int VGAP=5, HGAP=5;
 	private Cell page;
+	private Insets insets;
+	private SpringEngine springEngine;
+	private LayoutCache layoutCache;
+	private ParallelSprings parallelSprings;
+	private SizeSnapshot sizeSnapshot;
+	private LayoutMetrics metrics;
+	private boolean trustSprings;
+	private boolean componentsChanged=true;
 	/**
 		The constructor for the Layout Manager. 
 		Note that the {@link pagelayout.Cell#createLayout createLayout} method 
@@ -155,7 +163,14 @@ public class PageLayout implements LayoutManager, LayoutManager2
 		hgap=HGAP;
 		topLevelCell.addComponentsToContainer(parent);
 		this.page=topLevelCell;  
-		topLevelCell.invalidate();
+		if(topLevelCell.templateInstance)
+		{
+			topLevelCell.templateInstance=false;
+			trustSprings=true;
+		}
+		else topLevelCell.invalidate();
+		sizeSnapshot=new SizeSnapshot();
+		topLevelCell.setSizeSnapshot(sizeSnapshot);
 		setDimensions(parent);
 	}
 	public void setDimensions(Container parent)
@@ -180,12 +195,203 @@ public class PageLayout implements LayoutManager, LayoutManager2
 	{
 		hgap=horizontalGap;
 		vgap=verticalGap;
+		if(layoutCache!=null)layoutCache.clear();
 		mainContainer.setPreferredSize(
 			preferredLayoutSize(mainContainer));
                 mainContainer.setMinimumSize(
 			minimumLayoutSize(mainContainer));
 		mainContainer.invalidate();	
 	}
+/**
+	Selects the method used to compute the two-dimensional springs
+	of the rows and columns of the layout. By default, the spring of
+	each cell is computed by the recursive calls to the 
+	{@link pagelayout.Cell#computeBoundSpring computeBoundSpring} method
+	of the cells. If the flag is set to <code>true</code>, the springs
+	are instead computed by flattening the tree of cells into arrays,
+	which avoids most of the temporary objects and may be faster
+	for layouts with a very large number of cells.
+
+	@param flag <code>true</code> to compute the springs from the 
+	flattened tree, <code>false</code> otherwise.
+**/
+	public void setUseSpringEngine(boolean flag)
+	{
+		if(!flag)springEngine=null;
+		else if(springEngine==null)springEngine=new SpringEngine();
+	}
+/**
+	Sets the number of container sizes for which the bounds of the
+	components are cached. If the container is laid out again with one
+	of the cached sizes, the cached bounds are assigned to the 
+	components without laying out the cells again. The cache is 
+	cleared whenever the spring of the top level cell is recomputed,
+	which includes each time the container is resized, since the
+	preferred sizes of some components may depend on their widths.
+	It is not used if the sizes of some components are linked to the
+	size of the container.
+
+	@param capacity the maximum number of cached sizes. If it is not
+	positive, which is the default, the bounds are not cached.
+**/
+	public void setLayoutCacheSize(int capacity)
+	{
+		layoutCache=(capacity>0?new LayoutCache(capacity):null);
+	}
+/**
+	Returns the number of times that the bounds of the components were
+	found in the cache.
+
+	@return The number of cache hits, <code>0</code> if the cache is
+	not being used.
+	@see #setLayoutCacheSize
+**/
+	public long getLayoutCacheHits()
+	{
+		return (layoutCache==null?0:layoutCache.getHits());
+	}
+/**
+	Returns the number of times that the container had to be laid out
+	because its bounds were not found in the cache.
+
+	@return The number of cache misses, <code>0</code> if the cache is
+	not being used.
+	@see #setLayoutCacheSize
+**/
+	public long getLayoutCacheMisses()
+	{
+		return (layoutCache==null?0:layoutCache.getMisses());
+	}
+/**
+	Discards the cached bounds of the components. It is called by the
+	cells which lay out their components outside of the calls to
+	<code>layoutContainer</code>, such as the viewport aware
+	{@link pagelayout.SparseCellGrid SparseCellGrid}.
+**/
+	void discardLayoutCache()
+	{
+		if(layoutCache!=null)layoutCache.clear();
+	}
+/**
+	Enables the parallel computation of the two-dimensional springs of
+	the large subtrees of the cells, such as the columns of a top level
+	row, or the rows of a large grid. The components are first measured
+	on the calling thread, and the springs of the subtrees with at least
+	the specified number of cells are then computed in parallel
+	by the tasks of a <code>ForkJoinPool</code>.
+
+	@param threshold the minimum number of cells in a subtree
+	whose spring is computed as a separate task. If it is not positive,
+	which is the default, the springs are computed sequentially.
+**/
+	public void setParallelThreshold(int threshold)
+	{
+		parallelSprings=(threshold>0?new ParallelSprings(threshold):null);
+	}
+/**
+	Returns the number of queries for the sizes and the baselines of 
+	the components that were avoided because the components had 
+	already been measured during the same layout pass.
+
+	@return The number of saved queries.
+**/
+	public long getSavedSizeQueries()
+	{
+		return sizeSnapshot.getSavedQueries();
+	}
+/**
+	Called at the start of each request for the layout or the size of
+	the container. The sizes of the components recorded in an earlier
+	pass may no longer be valid, and are discarded. A component which
+	is invalidated while its container is still invalid does not 
+	invalidate the layout again, so until the container has been 
+	validated, the invalid components are looked for again.
+**/
+	private void beginPass(Container parent)
+	{
+		sizeSnapshot.clear();
+		if(trustSprings)page.invalidateResizedComponents();
+		else if(componentsChanged&&
+			!invalidateChangedComponents(mainContainer)&&
+			mainContainer.isValid())componentsChanged=false;
+	}
+/**
+	Calls {@link pagelayout.Cell#invalidatePath invalidatePath} for
+	the cells of the invalid components of the given container. Since
+	the ancestors of an invalidated component are invalidated too, 
+	only the invalid containers which are not wrapped by a 
+	{@link pagelayout.ComponentCell ComponentCell}, such as the panel
+	of a {@link pagelayout.PanelCell PanelCell}, are searched further,
+	and the cells are found through the index of the tree instead of 
+	by traversing it.
+
+	@param parent the container.
+
+	@return <code>true</code> if at least one such cell was found.
+**/
+	private boolean invalidateChangedComponents(Container parent)
+	{
+		CellIndex index=page.getCellIndex();
+		boolean found=false;
+		int n=parent.getComponentCount();
+		for(int i=0;i<n;i++)
+		{
+			Component c=parent.getComponent(i);
+			if(c.isValid())continue;
+			Cell cell=index.getCell(c);
+			if(cell!=null)
+			{
+				cell.invalidatePath();
+				found=true;
+			}
+			if((c instanceof Container)&&!(cell instanceof ComponentCell)&&
+				invalidateChangedComponents((Container)c))found=true;
+		}
+		return found;
+	}
+/**
+	Starts collecting the metrics of the layouts done by this
+	layout manager, if they are not already being collected.
+
+	@return The object holding the metrics, which may be published as
+	a JMX MBean by calling its 
+	{@link pagelayout.LayoutMetrics#register register} method.
+**/
+	public LayoutMetrics enableMetrics()
+	{
+		if(metrics==null)
+		{
+			metrics=new LayoutMetrics();
+			page.setLayoutMetrics(metrics);
+			metrics.measureTree(page);
+		}
+		return metrics;
+	}
+/**
+	Returns the metrics of the layouts done by this layout manager.
+
+	@return The object holding the metrics, or <code>null</code> if
+	the metrics are not being collected.
+	@see #enableMetrics
+**/
+	public LayoutMetrics getMetrics()
+	{
+		return metrics;
+	}
+	private BoundSpring getPageSpring()
+	{
+		if(metrics==null)return computePageSpring();
+		long t=System.nanoTime();
+		BoundSpring spring=computePageSpring();
+		metrics.springDone(System.nanoTime()-t);
+		return spring;
+	}
+	private BoundSpring computePageSpring()
+	{
+		if(parallelSprings!=null)parallelSprings.compute(page);
+		if(springEngine!=null)return springEngine.compute(page);
+		return page.getBoundSpring();
+	}
 /**
 	Returns the top level cell, which is the cell whose
 	{@link pagelayout.Cell#createLayout createLayout} method was used to
@@ -234,18 +440,31 @@ public class PageLayout implements LayoutManager, LayoutManager2
 	public void layoutContainer(Container parent)
 	{
 		if(parent==null)return;
-	        //page.invalidate();
-		Dimension d=parent.getSize();
-		int w=d.width;
-		int h=d.height;
-		Insets inset=parent.getInsets();
+		beginPass(parent);
+		int w=parent.getWidth();
+		int h=parent.getHeight();
+		Insets inset=getContainerInsets(parent);
 		w-=(2*hgap+inset.left+inset.right);
 		h-=(2*vgap+inset.top+inset.bottom);
 		satisfyContainerLinks(w,h);
-		int x=hgap+inset.left;
-		int y=vgap+inset.right;
-		page.layout(hgap+inset.left,vgap+inset.top,w,h);
-		
+		BoundSpring spring=getPageSpring();
+		boolean useCache=(layoutCache!=null)&&
+				((links==null)||(links.size()==0));
+		long t=(metrics==null?0:System.nanoTime());
+		if(useCache&&layoutCache.replay(parent,w,h,spring))
+		{
+			// the components were moved without the cells knowing
+			page.boundsEpoch++;
+		}
+		else
+		{
+			page.layout(hgap+inset.left,vgap+inset.top,w,h);
+			if(useCache)layoutCache.record(parent,w,h);
+		}
+		sizeSnapshot.clear();
+		trustSprings=false;
+		if(metrics!=null)metrics.layoutDone(System.nanoTime()-t);
+
 	}
 	/**
 		Returns the minimum layout size of the container. 
@@ -256,7 +475,10 @@ public class PageLayout implements LayoutManager, LayoutManager2
 	**/
 	public Dimension minimumLayoutSize(Container parent)
 	{
-		BoundSpring spring=page.getBoundSpring();
+		beginPass(parent);
+		BoundSpring spring=getPageSpring();
+		sizeSnapshot.clear();
+		if(metrics!=null)metrics.sizeDone(false);
 		Insets inset=parent.getInsets();
 		return new Dimension(spring.getMinimumWidth()+2*hgap+
 				inset.left+inset.right,
@@ -272,7 +494,7 @@ public class PageLayout implements LayoutManager, LayoutManager2
 	**/
 	public Dimension maximumLayoutSize(Container parent)
 	{
-		BoundSpring spring=page.getBoundSpring();
+		BoundSpring spring=getPageSpring();
 		Insets inset=parent.getInsets();
 		return new Dimension(spring.getMaximumWidth()+2*hgap+
 				inset.left+inset.right,
@@ -288,8 +510,10 @@ public class PageLayout implements LayoutManager, LayoutManager2
 	**/
 	public Dimension preferredLayoutSize(Container parent)
 	{
-	        page.invalidate();
-		BoundSpring spring=page.getBoundSpring();
+		beginPass(parent);
+		BoundSpring spring=getPageSpring();
+		sizeSnapshot.clear();
+		if(metrics!=null)metrics.sizeDone(true);
 		Insets inset=parent.getInsets();
 		return new Dimension(spring.getPreferredWidth()+2*hgap
 				+inset.left+inset.right,
@@ -327,22 +551,121 @@ public class PageLayout implements LayoutManager, LayoutManager2
 		return 0.f;
 	}
 	/**
-		Invalidates the layout.
+		Invalidates the layout. If the invalidation was caused by
+		one or more components of the container being invalidated, 
+		only the springs of the cells on the paths from the cells
+		of these components to the top level cell are invalidated.
+		The cells are found through the invalid components of the
+		container, without traversing the tree of cells. Otherwise,
+		e.g. when the container has been resized, the springs of all
+		the cells are invalidated, since the preferred sizes of some
+		components may depend on their widths. For a copy made by a 
+		{@link pagelayout.LayoutTemplate LayoutTemplate} which has not
+		been laid out yet, nothing is invalidated here, since each pass
+		till the first layout invalidates the springs of the cells 
+		whose components have changed their preferred sizes.
 	**/
 	public void invalidateLayout(Container target)
 	{
+		UpdateBatch b=page.getUpdateBatch();
+		if(b!=null)b.invalidate(this);
+		else invalidateCells();
+	}
+	void invalidateCells()
+	{
+		if(trustSprings)return;
+		componentsChanged=true;
+		if(invalidateChangedComponents(mainContainer))return;
 		getTopLevelCell().invalidate();	
 	}
+/**
+	Starts a batch of changes to the tree of cells of this layout.
+	Until the matching call to 
+	{@link pagelayout.PageLayout#endUpdate endUpdate}, the components
+	of the cells that are added, replaced or removed, e.g. by the 
+	{@link pagelayout.Cell#replaceCell replaceCell} and
+	{@link pagelayout.Cell#removeComponent removeComponent} methods,
+	are not added to or removed from their containers, and the 
+	invalidations and validations of the layout that they, or the
+	changes to the sizes, links and gaps of the cells, would cause are
+	recorded instead of being performed. When the outermost batch is 
+	closed, the components are added and removed, grouped by their 
+	containers, the springs of the cells are invalidated once, and the
+	container is validated once, so that rebuilding a part of a form 
+	leads to a single computation of the springs and a single layout.
+	<p>
+	Batches may be nested, and should be started and ended on the 
+	event dispatch thread. See also 
+	{@link pagelayout.PageLayout#batch batch}.
+	</p>
+**/
+	public void beginUpdate()
+	{
+		Cell root=page.getRootCell();
+		UpdateBatch b=root.getUpdateBatch();
+		if(b==null)
+		{
+			b=new UpdateBatch();
+			root.setUpdateBatch(b);
+		}
+		b.begin();
+	}
+/**
+	Ends a batch of changes started by 
+	{@link pagelayout.PageLayout#beginUpdate beginUpdate}. If the 
+	outermost batch has been ended, the recorded changes are applied.
+
+	@throws IllegalStateException if no batch has been started.
+**/
+	public void endUpdate()
+	{
+		Cell root=page.getRootCell();
+		UpdateBatch b=root.getUpdateBatch();
+		if(b==null)
+			throw new IllegalStateException(
+				"endUpdate() called without beginUpdate()");
+		if(!b.end())return;
+		root.setUpdateBatch(null);
+		b.apply(mainContainer);
+	}
+/**
+	Applies the changes made by the given <code>Runnable</code> to 
+	the tree of cells of this layout as a single batch, i.e. between
+	the calls to {@link pagelayout.PageLayout#beginUpdate beginUpdate}
+	and {@link pagelayout.PageLayout#endUpdate endUpdate}.
+
+	@param changes the changes to the tree of cells.
+**/
+	public void batch(Runnable changes)
+	{
+		beginUpdate();
+		try
+		{
+			changes.run();
+		}
+		finally
+		{
+			endUpdate();
+		}
+	}
 	private void satisfyContainerLinks(int w,int h)
 	{
 		if(links==null)return;
 		int n=links.size();
 		for(int i=0;i<n;i++)
-			links.elementAt(i).setSize(w,h);
+		{
+			ContainerSizeLink link=links.elementAt(i);
+			link.setSize(w,h);
+			for(Component c:link.components)
+			{
+				Cell cell=page.getComponentCell(c);
+				if(cell!=null)cell.invalidatePath();
+				sizeSnapshot.remove(c);
+			}
+		}
 		if(n>0)
 		{
-			page.invalidate();
-			BoundSpring b=page.getBoundSpring();
+			BoundSpring b=getPageSpring();
 		}
 	}
 /**
@@ -500,6 +823,12 @@ public class PageLayout implements LayoutManager, LayoutManager2
 			}
 		}
 	}
+	private Insets getContainerInsets(Container parent)
+	{
+		if(!(parent instanceof JComponent))return parent.getInsets();
+		if(insets==null)insets=new Insets(0,0,0,0);
+		return insets=((JComponent)parent).getInsets(insets);
+	}
 	public Insets getInset()
 	{
 		Insets b=new Insets(0,0,0,0);
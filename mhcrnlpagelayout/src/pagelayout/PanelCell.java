@@ -82,7 +82,7 @@ public class PanelCell extends Cell
 **/
 	public BoundSpring computeBoundSpring()
 	{
-		BoundSpring bs= cell.computeBoundSpring();
+		BoundSpring bs= new BoundSpring(cell.getBoundSpring());
 		Insets inset=container.getInsets();
 		bs.setInset(2*hgap+inset.left+inset.right,
 			2*vgap+inset.top+inset.bottom);
@@ -107,8 +107,8 @@ public class PanelCell extends Cell
 	{	
 		if(parent!=container)
 		{
-			if(container.getParent()!=parent)
-			parent.add(container);
+			if(getParentOf(container)!=parent)
+			addToContainer(container,parent);
 			isTopLevelCell=false;
 		}
 		else isTopLevelCell=true;
@@ -173,8 +173,8 @@ public class PanelCell extends Cell
 **/
 	public Container removeAllComponents(Container parent)
 	{
-		parent=container.getParent();
-		if(parent!=null) parent.remove(container);
+		parent=getParentOf(container);
+		if(parent!=null) removeFromContainer(container,parent);
 		cell.removeAllComponents(container);
 		return parent;
 	}
@@ -229,13 +229,13 @@ public class PanelCell extends Cell
 			Cell c=getChildAt(i);
 			c.setComponentGaps(hgap,vgap);
 		}
-		invalidate();
+		invalidatePath();
 	}
 	public void setContainerGaps(int hgap, int vgap)
 	{
 		this.vgap=vgap;
 		this.hgap=hgap;
-		invalidate();
+		invalidatePath();
 		
 	}
 	public Cell duplicate(ComponentDuplicator c)
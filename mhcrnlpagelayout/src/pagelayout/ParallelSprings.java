@@ -0,0 +1,217 @@
+/*
+	------------------------------------------------
+	ParallelSprings.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.Component;
+import java.util.*;
+import java.util.concurrent.*;
+/**
+	<code>ParallelSprings</code> computes the two-dimensional springs of
+	the large subtrees of a tree of cells in parallel, using a 
+	<code>ForkJoinPool</code>.
+	<p>
+	The computation is done in three steps. First, the springs of all
+	the cells that query their components, i.e. the component cells
+	and the tabbed pane cells, are computed on the calling thread,
+	which is normally the event dispatch thread. The sizes of the 
+	subtrees that contain only rows, columns and grids, counting each
+	component and gap, are determined at the same time. Next, the springs of the subtrees with at least 
+	a given number of cells are computed as fork/join tasks, each of
+	which forks another task for each of its own large subtrees. Since
+	the components have already been measured, these tasks never call
+	the Swing methods. Finally, the springs of the remaining cells,
+	such as the panel cells, the card cells, and the rows and grids
+	whose components are aligned along their baselines, are computed
+	on the calling thread, since aligning the components queries their 
+	baselines and changes their cells.
+	</p>
+**/
+class ParallelSprings
+{
+	private static ForkJoinPool pool;
+	private int threshold;
+	private IdentityHashMap<Cell,Integer> sizes;
+	private Vector<Cell> roots;
+/**
+	Creates an object that computes in parallel the springs of the
+	subtrees with at least the given number of cells.
+
+	@param threshold the minimum number of cells in a subtree whose
+	spring is computed as a separate task.
+**/
+	ParallelSprings(int threshold)
+	{
+		this.threshold=Math.max(threshold,1);
+		sizes=new IdentityHashMap<Cell,Integer>();
+		roots=new Vector<Cell>();
+	}
+/**
+	Computes the springs of the cells in the tree with the given root
+	which have been invalidated.
+
+	@param root the root of the tree.
+
+	@return The two-dimensional spring of the root.
+**/
+	BoundSpring compute(Cell root)
+	{
+		if(root.boundSpring!=null)return root.getBoundSpring();
+		try
+		{
+			if(snapshot(root)>=threshold)roots.add(root);
+			if(roots.size()>0)
+				getPool().invoke(new SpringTask(roots));
+		}
+		finally
+		{
+			sizes.clear();
+			roots.clear();
+		}
+		return root.getBoundSpring();
+	}
+/**
+	Measures the components of the subtree with the given root, and 
+	records the sizes of the subtrees that can be computed in parallel.
+
+	@param cell the root of the subtree.
+
+	@return The number of cells whose spring needs to be computed if
+	the spring of the subtree can be computed in parallel, 
+	<code>-1</code> otherwise.
+**/
+	private int snapshot(Cell cell)
+	{
+		if(cell.boundSpring!=null)return 0;
+		Class<?> type=cell.getClass();
+		if((type==ComponentCell.class)||(type==Gap.class)||
+				(type==TabbedPaneCell.class))
+		{
+			cell.getBoundSpring();
+			return 1;
+		}
+		boolean isPure=(type==Column.class)||
+			((type==CellGrid.class)&&!alignsBaselines((CellGrid)cell))||
+			((type==Row.class)&&!((Row)cell).isBaseline()&&
+				!alignsBaselines((Row)cell));
+		if(!isPure&&!(cell instanceof PanelCell))return -1;
+		int n=cell.numberOfChildren();
+		int size=1;
+		int[] childSizes=new int[n];
+		for(int i=0;i<n;i++)
+		{
+			int s=childSizes[i]=snapshot(cell.getChildAt(i));
+			if(s<0)isPure=false;
+			else size+=s;
+		}
+		if(isPure)
+		{
+			sizes.put(cell,size);
+			return size;
+		}
+		for(int i=0;i<n;i++)
+			if(childSizes[i]>=threshold)roots.add(cell.getChildAt(i));
+		return -1;
+	}
+/*
+	Returns true if the row has at least two components that may be
+	aligned along their baselines.
+*/
+	private static boolean alignsBaselines(Row row)
+	{
+		int k=0;
+		int n=row.numberOfChildren();
+		for(int i=0;i<n;i++)
+		{
+			Cell cell=row.getChildAt(i);
+			if((cell instanceof ComponentCell)&&
+				isBaselineCell((ComponentCell)cell)&&(++k>1))
+				return true;
+		}
+		return false;
+	}
+/*
+	Returns true if any row of the grid has at least two components 
+	that may be aligned along their baselines.
+*/
+	private static boolean alignsBaselines(CellGrid grid)
+	{
+		Cell[][] elements=grid.elements;
+		for(int i=0;i<elements.length;i++)
+		{
+			int k=0;
+			for(int j=0;j<elements[i].length;j++)
+			{
+				Cell cell=elements[i][j];
+				if(cell==null)continue;
+				ComponentCell cc=cell.getComponentCell();
+				if((cc!=null)&&isBaselineCell(cc)&&(++k>1))
+					return true;
+			}
+		}
+		return false;
+	}
+	private static boolean isBaselineCell(ComponentCell cell)
+	{
+		Component c=cell.getComponent();
+		return (c!=null)&&Cell.isBaselineClass(c.getClass());
+	}
+	private boolean isLarge(Cell cell)
+	{
+		Integer size=sizes.get(cell);
+		return (size!=null)&&(size>=threshold);
+	}
+	private static synchronized ForkJoinPool getPool()
+	{
+		if(pool==null)pool=new ForkJoinPool();
+		return pool;
+	}
+	private class SpringTask extends RecursiveAction
+	{
+		private final static long serialVersionUID=1L;
+		private Cell cell;
+		private Collection<Cell> cells;
+		SpringTask(Cell cell)
+		{
+			this.cell=cell;
+		}
+		SpringTask(Collection<Cell> cells)
+		{
+			this.cells=cells;
+		}
+		protected void compute()
+		{
+			if(cell==null)
+			{
+				invokeAll(tasks(cells));
+				return;
+			}
+			Vector<Cell> large=new Vector<Cell>();
+			int n=cell.numberOfChildren();
+			for(int i=0;i<n;i++)
+			{
+				Cell child=cell.getChildAt(i);
+				if(isLarge(child))large.add(child);
+			}
+			if(large.size()>1)invokeAll(tasks(large));
+			cell.getBoundSpring();
+		}
+		private Vector<SpringTask> tasks(Collection<Cell> cells)
+		{
+			Vector<SpringTask> tasks=new Vector<SpringTask>();
+			for(Cell c:cells)tasks.add(new SpringTask(c));
+			return tasks;
+		}
+	}
+}
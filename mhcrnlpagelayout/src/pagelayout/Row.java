@@ -19,7 +19,6 @@ package pagelayout;
 import java.awt.*;
 import javax.swing.*;
 
-import static java.lang.Math.*;
 
 /**
 	A <code>Row</code> is a collection of {@link pagelayout.Cell Cell} objects
@@ -40,6 +39,8 @@ public class Row extends CellContainer
 {
 	private int[] offsets;
 	private BoundSpring columnSprings[];
+	private int[] columnWidths, constrainedHeights;
+	private final SpaceDistributor distributor=new SpaceDistributor();
 /**
 		Creates a row with the specified alignments.
 		
@@ -68,7 +69,10 @@ public class Row extends CellContainer
 		super(Cell.NO_ALIGNMENT,Cell.NO_ALIGNMENT,true);
 		if(columnCells!=null)	
 		for(Cell columnCell:columnCells)
+		{
 			cells.add(columnCell);
+			columnCell.setParent(this);
+		}
 	}
 /**
 	Creates a row with the specified alignments. The input cells are arranged sequentially from left to right.
@@ -81,7 +85,10 @@ public class Row extends CellContainer
 	{
 		super(halign,valign,true);
 		for(Cell columnCell:columnCells)
+		{
 			cells.add(columnCell);
+			columnCell.setParent(this);
+		}
 	} 
 /**
 	Creates a row with the specified alignments. The input components are arranged sequentially from left to right.
@@ -183,7 +190,8 @@ public class Row extends CellContainer
 		int hi=h;
 		int dh=0;
 		boolean offset=isBaseline();
-		int[] constrainedHeight=new int[n];
+		int[] constrainedHeight=constrainedHeights=
+				getBuffer(constrainedHeights,n);
 		for(int i=0;i<n;i++)constrainedHeight[i]=-1;
 		Constraint constraint=getConstraint();
 		if(constraint!=null)constraint.setSize(constrainedHeight,n,h);
@@ -239,7 +247,8 @@ public class Row extends CellContainer
 		if((columnSprings==null)||(columnSprings.length<n))
 			invalidate();
 		BoundSpring p=getBoundSpring();
-		return getColumnWidths(getName(),x,y,w,h,p,columnSprings,n);
+		return columnWidths=SpaceDistributor.distribute(columnSprings,n,
+				w,p.getMinimumWidth(),0,columnWidths,distributor);
 	}
 /**
 	Computes the widths of the individual columns contained in a row bounded by the specified rectangle. This method is used by this class and {@link pagelayout.CellGrid CellGrid} to layout the colums within a row when the method {@link pagelayout.Column#setBounds setBounds} of the two classes is called.
@@ -265,149 +274,64 @@ public class Row extends CellContainer
                 int x,int y,int width,int height,
 		BoundSpring boundSpring, BoundSpring columnSprings[], int n)
 	{
-                if(name==null)name="[NULL]";
-		BoundSpring p=boundSpring;
-		BoundSpring csprings[]=columnSprings;
-		int w=width;
-		int h=height;
-		int[] widthArray=new int[n]; 
-		//int pw=p.getPreferredWidth();
-		int pw=p.getMinimumWidth();
-		if(w>pw)
-		{
-			float available=0;
-			int last=-1;
-			int mingap=0;
-			int lastc=-1;
-			int numGap=0;
-			int numComp=0;
-			int comp=0;
-			for(int i=0;i<n;i++)
-			{
-				int cw=csprings[i].getPreferredWidth();
-				if(csprings[i].isXFixed())
-				{
-					widthArray[i]=cw;
-					w-=cw;
-				}
-				else 
-				{
-					available+=cw;
-					last=i;
-					if(csprings[i].isGap())
-					{
-					  mingap+=csprings[i].getMinimumWidth();
-					  numGap++;
-					}
-					else
-					{
-					  lastc=i;
-					  numComp++;
-					  comp+=cw;
-			
-					}
-				}
-			}
-			if(last>=0)
-			{
-			  int used=0;
-		          int minw=0;
-                          int mw=0;
-                          int cw=0;
-			  if((numGap==0)||(mingap>w)||(numComp==0))
-		          {
-			     float ratio=w/available;
-			     available=0;
-			     for(int i=0;i<=last;i++)
-			     {
-				if(csprings[i].isXFixed())continue;
-				int pcw=csprings[i].getPreferredWidth();
-				cw=(int)round(pcw*ratio);
-				if(i<last)widthArray[i]=cw;
-			        else cw=widthArray[last]=(int)round(w-used);
-				used+=cw;
-				mw =csprings[i].getMinimumWidth();
-				if(mw>widthArray[i])minw+=mw;
-				else available+=pcw;
-			     }
-			     if((minw>0)&&(minw<w))
-			     { 
-   				ratio=(w-minw)/available;
-			        for(int i=0;i<=last;i++)
-			        {
-				   if(csprings[i].isXFixed())continue;
-				   int pcw=csprings[i].getPreferredWidth();
-				   mw=csprings[i].getMinimumWidth();
-				   if(i<last)
-				   {
-					if(widthArray[i]<mw)
-						cw=mw;
-				   	 else cw=(int)round(pcw*ratio);
-					widthArray[i]=cw;
-					used+=cw;
-				   }
-			           else widthArray[last]=(int)round(w-used);
-                               }
-			     }
-			     
-			  }
-			  else
-			  {
-			     float wc=w-mingap;
-			     float ratio=wc/comp;
-			     used=0;
-			     cw=0;
-			     minw=0;
-			     for(int i=0;i<=last;i++)
-			     {
-				if(csprings[i].isXFixed())continue;
-				if(csprings[i].isGap())
-				{
-					cw=csprings[i].getMinimumWidth();
-					widthArray[i]=cw;
-					continue;
-				}
-				int cwe=csprings[i].getPreferredWidth();
-				mw=csprings[i].getMinimumWidth();
-				if(i<lastc)
-				{	
-					cw=(int)round(cwe*ratio);
-					widthArray[i]=cw;
-					used+=cw;
-				}
-			        else
-			          cw=widthArray[lastc]=(int)round(wc-used);
-					if(cw<mw)minw+=cw;
-					else comp+=cwe;
-			     }
-			     if((minw>0)&&(minw<wc))
-			     {
-			       ratio=(wc-minw)/comp;
-			       used=0;
-			       for(int i=0;i<=last;i++)
-			       {
-				if(csprings[i].isXFixed())continue;
-				if(csprings[i].isGap())continue;
-				mw=csprings[i].getMinimumWidth();
-				int cwe=csprings[i].getPreferredWidth();
-				if(i<last)
-				{
-			            if(widthArray[i]<mw)cw=mw;
-				    else cw=(int)(ratio*cwe);
-				    widthArray[i]=cw;
-				    used+=cw;
-			       }
-			       else widthArray[i]=(int)Math.round(wc-used);
-	                      }
-			     }
-	                    }
-				
-	                }
-		}
-		else for(int i=0;i<n;i++)
-			widthArray[i]=csprings[i].getMinimumWidth();
-			//widthArray[i]=csprings[i].getPreferredWidth();
-		return widthArray;
+		return getColumnWidths(name,x,y,width,height,boundSpring,
+                           columnSprings,n,null);
+	}
+/**
+	Same as {@link pagelayout.Row#getColumnWidths(String,int,int,int,int,BoundSpring,BoundSpring[],int) getColumnWidths}, except that the widths are
+	stored in the given buffer if its length is <code>n</code>.
+
+	@param name the name of the row, used only for diagnostics.
+	@param x the x-coordinate of the top left of the rectangle.
+	@param y the y-coordinate of the top left of the rectangle.
+	@param width the width of the rectangle.
+	@param height the height of the rectangle.
+	@param boundSpring the two-dimensional spring associated with the row.
+	@param columnSprings the array of two-dimensional springs associated with the  columns of the row.
+	@param n the number of columns in the row.
+	@param buffer the array returned by the previous call for the same row, or <code>null</code>.
+
+	@return The array of widths of the individual columns to fit in the specified rectangle.
+**/
+	protected static int[] getColumnWidths(
+                String name,
+                int x,int y,int width,int height,
+		BoundSpring boundSpring, BoundSpring columnSprings[], int n,
+		int[] buffer)
+	{
+		return SpaceDistributor.distribute(columnSprings,n,width,
+			boundSpring.getMinimumWidth(),0,buffer,null);
+	}
+/**
+	Prepares the row for the computation of its spring by the 
+	{@link pagelayout.SpringEngine SpringEngine}. The baselines of the
+	components of the row are aligned, and the trailing gaps are
+	removed if needed.
+
+	@return The vertical offsets of the cells of the row if it is
+	aligned along the baseline, <code>null</code> otherwise.
+**/
+	int[] prepareSprings()
+	{
+		updateBaselineAlignments();
+		if(cells.size()==0)return null;
+		cells.removeLastGapIfNeeded();
+		if(!isBaseline())return null;
+		getOffsets();
+		return offsets;
+	}
+/**
+	Collects the springs of the cells of the row after its spring has
+	been computed by the {@link pagelayout.SpringEngine SpringEngine}.
+**/
+	void linkChildSprings()
+	{
+		int n=cells.size();
+		if(n==0)return;
+		if((columnSprings==null)||(columnSprings.length!=n))
+			columnSprings=new BoundSpring[n];
+		for(int i=0;i<n;i++)
+			columnSprings[i]=cells.elementAt(i).getBoundSpring();
 	}
 /**
 	Computes the two-dimensional spring associated with the row that results from stacking horizontally the two-dimensional springs associated with each column of the row.
@@ -498,7 +422,7 @@ public class Row extends CellContainer
 	{
 		int b=getBaseline();
 		int n=cells.size();
-		if(n>0)
+		if((n>0)&&((offsets==null)||(offsets.length!=n)))
 			offsets=new int[n];
 		if(b<0)
 		{
@@ -512,7 +436,7 @@ public class Row extends CellContainer
 			if(bi>=0)offsets[i]=b-bi;
 		}
 	} 
-	private boolean isBaseline()
+	boolean isBaseline()
 	{
 		return valignment==BASELINE;
 	}
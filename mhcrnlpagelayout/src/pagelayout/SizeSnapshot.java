@@ -0,0 +1,149 @@
+/*
+	------------------------------------------------
+	SizeSnapshot.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import java.util.*;
+import static java.lang.Math.*;
+/**
+	A <code>SizeSnapshot</code> records the minimum, preferred and 
+	maximum sizes, and the baselines, of the components of a container 
+	the first time they are needed during a layout pass, so that each
+	component is measured at most once per pass even if its size or 
+	baseline is needed several times, e.g. by the rows that enclose a
+	component aligned along the baseline, or when the springs of all the
+	cards of a card cell are recomputed.
+	The snapshot is kept by the top level cell of the tree, and is 
+	cleared by the {@link pagelayout.PageLayout PageLayout} at the 
+	start and at the end of each computation of the layout or the size
+	of the container, since the sizes of the components may change
+	between these computations.
+	<p>
+	Clearing the snapshot only advances its generation, and the arrays
+	recorded for the components are reused by the next pass, so that
+	a steady-state layout does not allocate. The arrays of the 
+	components which have not been measured for a while are discarded
+	when the number of recorded components has doubled.
+	</p>
+**/
+class SizeSnapshot
+{
+	private final static int UNKNOWN=Integer.MIN_VALUE;
+	private final static int MIN_PURGE_SIZE=64;
+	private IdentityHashMap<Component,int[]> sizes;
+	private int generation=1, purgedAt=1, purgeSize=MIN_PURGE_SIZE;
+	private long savedQueries;
+	SizeSnapshot()
+	{
+		sizes=new IdentityHashMap<Component,int[]>();
+	}
+/**
+	Returns the two-dimensional spring of the given component, 
+	measuring the component only if it has not been measured since the
+	snapshot was last cleared.
+
+	@param c the component.
+
+	@return A new spring with the sizes of the component.
+**/
+	BoundSpring getBoundSpring(Component c)
+	{
+		int[] s=getEntry(c);
+		if(s[0]==UNKNOWN)
+		{
+			Dimension d=c.getMinimumSize();
+			s[0]=min(d.width,Cell.MAX);
+			s[1]=min(d.height,Cell.MAX);
+			d=c.getPreferredSize();
+			s[2]=min(d.width,Cell.MAX);
+			s[3]=min(d.height,Cell.MAX);
+			d=c.getMaximumSize();
+			s[4]=min(d.width,Cell.MAX);
+			s[5]=min(d.height,Cell.MAX);
+		}
+		else savedQueries+=3;
+		return new BoundSpring(s[0],s[2],s[4],s[1],s[3],s[5],false);
+	}
+/**
+	Returns the baseline of the component of the given cell, computing
+	it only if it has not been computed since the snapshot was last 
+	cleared.
+
+	@param cell the cell.
+
+	@return The baseline of the component of the cell.
+**/
+	int getBaseline(ComponentCell cell)
+	{
+		int[] s=getEntry(cell.getComponent());
+		if(s[6]==UNKNOWN)s[6]=cell.computeBaseline();
+		else savedQueries++;
+		return s[6];
+	}
+/**
+	Discards the recorded sizes of the given component.
+
+	@param c the component.
+**/
+	void remove(Component c)
+	{
+		int[] s=sizes.get(c);
+		if(s!=null)s[7]=generation-1;
+	}
+/**
+	Discards the recorded sizes of all the components.
+**/
+	void clear()
+	{
+		generation++;
+		if(sizes.size()>purgeSize)purge();
+	}
+/**
+	Returns the number of calls to the methods 
+	<code>getMinimumSize</code>, <code>getPreferredSize</code>, and 
+	<code>getMaximumSize</code> of the components, and to the methods
+	that compute their baselines, that were avoided by using 
+	the recorded values.
+
+	@return The number of saved queries.
+**/
+	long getSavedQueries()
+	{
+		return savedQueries;
+	}
+	private int[] getEntry(Component c)
+	{
+		int[] s=sizes.get(c);
+		if(s==null)
+		{
+			s=new int[8];
+			sizes.put(c,s);
+		}
+		if(s[7]!=generation)
+		{
+			Arrays.fill(s,0,7,UNKNOWN);
+			s[7]=generation;
+		}
+		return s;
+	}
+	private void purge()
+	{
+		Iterator<int[]> it=sizes.values().iterator();
+		while(it.hasNext())
+			if(it.next()[7]-purgedAt<0)it.remove();
+		purgedAt=generation;
+		purgeSize=max(MIN_PURGE_SIZE,2*sizes.size());
+	}
+}
@@ -0,0 +1,515 @@
+/*
+	------------------------------------------------
+	SpaceDistributor.java
+	------------------------------------------------
+
+	This software is distributed under the
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package pagelayout;
+import static java.lang.Math.*;
+/**
+	The <code>SpaceDistributor</code> divides the width of a row, or the
+	height of a column, among the springs of its columns or rows. It is
+	used by {@link pagelayout.Row Row}, {@link pagelayout.Column Column},
+	{@link pagelayout.CellGrid CellGrid} and
+	{@link pagelayout.SparseCellGrid SparseCellGrid}.
+	<p>
+	The springs which are rigid get their preferred sizes. If there is
+	room for the minimum sizes of the gaps, the gaps get their minimum
+	sizes, and the remaining space is shared by the other springs in
+	proportion to their preferred sizes. Otherwise all the springs
+	which are not rigid share the space in this way. If none of the
+	shares falls below the minimum size of its spring, these are the
+	sizes, exactly as computed by the earlier versions of this library,
+	with the rounding error given to the last spring. As before, a
+	share may then exceed the maximum size of its spring.
+	</p>
+	<p>
+	Otherwise the sizes are clamped, and differ from those of the 
+	earlier versions, which shrank the other springs once to make 
+	room for those below their minimum sizes, and could still leave
+	some of them below their minimums. The minimum, maximum and preferred
+	sizes of each spring are first made consistent: the maximum is
+	raised to the minimum, and the preferred size is moved between
+	the two, so that a rigid spring gets at least its minimum size. If
+	the components can take the space left by the gaps at their
+	minimum sizes, they share it, otherwise the gaps share the
+	space too, and if the space left by the rigid springs is less than
+	the minimum sizes of the others, the rigid springs are shrunk as
+	well. Each shared spring gets its preferred size times a common
+	ratio, clamped to its minimum and maximum sizes. Instead of
+	repeating the proportional pass until no more springs are clamped,
+	a single sweep over the ratios at which the springs reach their
+	minimum or maximum sizes finds the ratio at which the sizes add up
+	to the available space. Springs whose preferred size is zero keep
+	their minimum sizes, unless the other springs cannot grow enough,
+	in which case every spring takes a share of the rest of the space
+	in proportion to its room for growth.
+	</p>
+	<p>
+	The maximum sizes of the clamped sizes are ignored only if the
+	space exceeds the sum of the maximum sizes. If the space is less
+	than the sum of the minimum sizes, every spring gets its minimum
+	size. The clamped sizes are rounded by rounding their running sums,
+	so that each size is within one pixel of its exact value, the
+	rounding errors do not accumulate, and a size which is clamped to
+	its minimum or maximum is never rounded past it.
+	</p>
+	<p>
+	An instance of this class holds the arrays used while the sizes
+	are clamped, so that a row, a column or a grid which keeps one
+	does not allocate them again on each layout. The limits of the
+	springs are copied into these arrays once, so that the later
+	passes of the clamping do not visit the springs again.
+	</p>
+**/
+final class SpaceDistributor
+{
+	private static final int COMPONENTS=0;
+	private static final int FLEXIBLE=1;
+	private static final int ALL=2;
+	private static final byte RIGID=0;
+	private static final byte GAP=1;
+	private static final byte COMPONENT=2;
+	private int[] minimums, maximums, preferreds;
+	private byte[] kinds;
+	private double[] ratios;
+	private int[] weights;
+	private double slope;
+/**
+	Distributes the given space among the springs.
+
+	@param springs the springs of the columns or rows.
+	@param n the number of springs.
+	@param size the width or the height to be distributed.
+	@param minimumSize the minimum size of the spring of the row or
+	the column.
+	@param coordinate 0 for the widths of the columns, 1 for the
+	heights of the rows.
+	@param buffer the array returned by the previous call for the same
+	row or column, or <code>null</code>.
+	@param distributor the distributor whose arrays are reused if the
+	sizes have to be clamped, or <code>null</code>.
+
+	@return The sizes of the springs.
+**/
+	static int[] distribute(BoundSpring[] springs, int n, int size,
+		int minimumSize, int coordinate, int[] buffer,
+		SpaceDistributor distributor)
+	{
+		int[] sizes=Cell.getBuffer(buffer,n);
+		if(size<=minimumSize)
+		{
+			for(int i=0;i<n;i++)
+				sizes[i]=springs[i].getSize(0,coordinate);
+			return sizes;
+		}
+		int w=size;
+		int last=-1;
+		int lastComponent=-1;
+		int numGap=0;
+		int numComponent=0;
+		int mingap=0;
+		float available=0;
+		int comp=0;
+		for(int i=0;i<n;i++)
+		{
+			BoundSpring s=springs[i];
+			int pref=s.getSize(2,coordinate);
+			if(s.isFixed(coordinate))
+			{
+				sizes[i]=pref;
+				w-=pref;
+				continue;
+			}
+			available+=pref;
+			last=i;
+			if(s.isGap())
+			{
+				mingap+=s.getSize(0,coordinate);
+				numGap++;
+			}
+			else
+			{
+				lastComponent=i;
+				numComponent++;
+				comp+=pref;
+			}
+		}
+		if(last<0)return sizes;
+		boolean inRange;
+		if((numGap==0)||(mingap>w)||(numComponent==0))
+			inRange=isProportional(springs,last,coordinate,FLEXIBLE,
+					w,w/available,sizes);
+		else
+		{
+			for(int i=0;i<=last;i++)
+			{
+				BoundSpring s=springs[i];
+				if(!s.isFixed(coordinate)&&s.isGap())
+					sizes[i]=s.getSize(0,coordinate);
+			}
+			float wc=w-mingap;
+			inRange=isProportional(springs,lastComponent,coordinate,
+					COMPONENTS,w-mingap,wc/comp,sizes);
+		}
+		if(inRange)return sizes;
+		if(distributor==null)distributor=new SpaceDistributor();
+		distributor.clamp(springs,n,size,coordinate,sizes);
+		return sizes;
+	}
+	private static boolean isShared(BoundSpring s, int coordinate,
+			int shared)
+	{
+		switch(shared)
+		{
+			case COMPONENTS:
+				return !s.isFixed(coordinate)&&!s.isGap();
+			case FLEXIBLE: return !s.isFixed(coordinate);
+			default: return true;
+		}
+	}
+/*
+	The proportional pass of the earlier versions; returns false if
+	any of the sizes is less than the minimum size of its spring.
+*/
+	private static boolean isProportional(BoundSpring[] springs,
+		int last, int coordinate, int shared, int w, float ratio,
+		int[] sizes)
+	{
+		int used=0;
+		boolean inRange=true;
+		for(int i=0;i<=last;i++)
+		{
+			BoundSpring s=springs[i];
+			if(!isShared(s,coordinate,shared))continue;
+			int cw;
+			if(i<last)cw=round(s.getSize(2,coordinate)*ratio);
+			else cw=w-used;
+			sizes[i]=cw;
+			used+=cw;
+			if(cw<s.getSize(0,coordinate))inRange=false;
+		}
+		return inRange;
+	}
+/*
+	Computes the clamped sizes.
+*/
+	private void clamp(BoundSpring[] springs, int n, int size,
+		int coordinate, int[] sizes)
+	{
+		if((kinds==null)||(kinds.length<n))
+		{
+			int capacity=max(n,2*kinds(kinds));
+			minimums=new int[capacity];
+			maximums=new int[capacity];
+			preferreds=new int[capacity];
+			kinds=new byte[capacity];
+		}
+		int[] mins=minimums, maxs=maximums, prefs=preferreds;
+		byte[] kinds=this.kinds;
+		int w=size;
+		int last=-1;
+		int lastComponent=-1;
+		int numGap=0;
+		long minRigid=0, maxRigid=0, prefRigid=0;
+		long minGap=0, maxGap=0, prefGap=0;
+		long minComponents=0, maxComponents=0, prefComponents=0;
+		for(int i=0;i<n;i++)
+		{
+			BoundSpring s=springs[i];
+			int min=s.getSize(0,coordinate);
+			int max=max(s.getSize(1,coordinate),min);
+			int pref=min(max(s.getSize(2,coordinate),min),max);
+			mins[i]=min;
+			maxs[i]=max;
+			prefs[i]=pref;
+			if(s.isFixed(coordinate))
+			{
+				kinds[i]=RIGID;
+				w-=sizes[i]=pref;
+				minRigid+=min;
+				maxRigid+=max;
+				prefRigid+=pref;
+				continue;
+			}
+			last=i;
+			if(s.isGap())
+			{
+				kinds[i]=GAP;
+				numGap++;
+				minGap+=min;
+				maxGap+=max;
+				prefGap+=pref;
+			}
+			else
+			{
+				kinds[i]=COMPONENT;
+				lastComponent=i;
+				minComponents+=min;
+				maxComponents+=max;
+				prefComponents+=pref;
+			}
+		}
+		int shared;
+		long sumMin, sumMax, sumPref;
+		if((numGap>0)&&(lastComponent>=0)&&(minGap<=w)&&
+			(w-minGap>=minComponents)&&(w-minGap<=maxComponents))
+		{
+			for(int i=0;i<=last;i++)
+				if(kinds[i]==GAP)sizes[i]=mins[i];
+			shared=COMPONENTS;
+			w-=minGap;
+			last=lastComponent;
+			sumMin=minComponents;
+			sumMax=maxComponents;
+			sumPref=prefComponents;
+		}
+		else if(w>=minGap+minComponents)
+		{
+			shared=FLEXIBLE;
+			sumMin=minGap+minComponents;
+			sumMax=maxGap+maxComponents;
+			sumPref=prefGap+prefComponents;
+		}
+		else
+		{
+			shared=ALL;
+			w=size;
+			last=n-1;
+			sumMin=minRigid+minGap+minComponents;
+			sumMax=maxRigid+maxGap+maxComponents;
+			sumPref=prefRigid+prefGap+prefComponents;
+		}
+		if(w<=sumMin)
+		{
+			for(int i=0;i<=last;i++)
+				if(isShared(kinds[i],shared))sizes[i]=mins[i];
+			return;
+		}
+		boolean useMax=(w<=sumMax);
+		double ratio=solve(last,shared,useMax,w,sumMin,sumPref);
+		double fill=0;
+		if(useMax&&(slope<=0))
+		{
+			double total=0,room=0;
+			for(int i=0;i<=last;i++)
+			{
+				if(!isShared(kinds[i],shared))continue;
+				double x=size(i,true,ratio);
+				total+=x;
+				room+=maxs[i]-x;
+			}
+			if((total<w-0.5)&&(room>0))fill=min(1,(w-total)/room);
+		}
+		roundSizes(last,shared,useMax,w,ratio,fill,sizes);
+	}
+	private static int kinds(byte[] kinds)
+	{
+		return kinds==null?0:kinds.length;
+	}
+	private static boolean isShared(byte kind, int shared)
+	{
+		switch(shared)
+		{
+			case COMPONENTS: return kind==COMPONENT;
+			case FLEXIBLE: return kind!=RIGID;
+			default: return true;
+		}
+	}
+/*
+	Rounds the running sums of the sizes at the given ratio, keeping
+	each size within one pixel of its exact value. The last size takes
+	the rest of the space.
+*/
+	private void roundSizes(int last, int shared, boolean useMax, int w,
+		double ratio, double fill, int[] sizes)
+	{
+		byte[] kinds=this.kinds;
+		int[] maxs=maximums;
+		double sum=0;
+		int rounded=0;
+		for(int i=0;i<last;i++)
+		{
+			if(!isShared(kinds[i],shared))continue;
+			double x=size(i,useMax,ratio);
+			if(fill>0)x+=fill*(maxs[i]-x);
+			sum+=x;
+			int cw=(int)(sum+0.5)-rounded;
+			int f=(int)(x+1e-9);
+			if(cw<f)cw=f;
+			else if((cw>f)&&(x-1e-9<=f))cw=f;
+			else if(cw>f+1)cw=f+1;
+			sizes[i]=cw;
+			rounded+=cw;
+		}
+		sizes[last]=w-rounded;
+	}
+	private double size(int i, boolean useMax, double ratio)
+	{
+		double size=ratio*preferreds[i];
+		int min=minimums[i];
+		if(size<min)return min;
+		if(useMax)
+		{
+			int max=maximums[i];
+			if(size>max)return max;
+		}
+		return size;
+	}
+/*
+	Finds the ratio r for which the sum of the clamped sizes
+	r*preferred equals w. The sum is piecewise linear in r, and
+	changes its slope at the ratios minimum/preferred and
+	maximum/preferred of the springs. Starting from a lower bound of
+	r, at which the sum of the sizes of the clamped springs and the sum
+	of the preferred sizes of the others are known, the ratios up to an
+	upper bound of r are swept. Instead of being sorted, they are
+	partitioned around a pivot as in quickselect: the sum at the pivot
+	tells whether r lies below or above it, and the ratios above r
+	are dropped while those below it are folded into the two sums.
+	The expected time is linear in the number of springs. The sum of
+	the preferred sizes of the springs which are not clamped at r is
+	left in slope.
+*/
+	private double solve(int last, int shared, boolean useMax, int w,
+		long sumMin, long sumPref)
+	{
+		double a,b;
+		if(sumPref==0)a=b=0;
+		else if(w<=sumPref)
+		{
+			a=max(0,(double)(w-sumMin)/sumPref);
+			b=(double)w/sumPref;
+		}
+		else
+		{
+			a=(double)w/sumPref;
+			b=Double.POSITIVE_INFINITY;
+		}
+		double clamped=0;
+		double slope=0;
+		/* each spring adds at most a minimum and a maximum event */
+		int capacity=2*(last+1);
+		if((ratios==null)||(ratios.length<capacity))
+		{
+			ratios=new double[capacity];
+			weights=new int[capacity];
+		}
+		double[] ratios=this.ratios;
+		int[] weights=this.weights;
+		byte[] kinds=this.kinds;
+		int ne=0;
+		for(int i=0;i<=last;i++)
+		{
+			if(!isShared(kinds[i],shared))continue;
+			int p=preferreds[i];
+			int m=minimums[i];
+			if(p<=0)
+			{
+				clamped+=m;
+				continue;
+			}
+			double ap=a*p;
+			double bp=b*p;
+			if(useMax)
+			{
+				int mx=maximums[i];
+				if(ap>=mx)
+				{
+					clamped+=mx;
+					continue;
+				}
+				if(mx<=bp)
+				{
+					ratios[ne]=(double)mx/p;
+					weights[ne++]=-p;
+				}
+			}
+			if(ap>=m)slope+=p;
+			else
+			{
+				clamped+=m;
+				if(m<=bp)
+				{
+					ratios[ne]=(double)m/p;
+					weights[ne++]=p;
+				}
+			}
+		}
+		/*
+			At the ratio t of an event with weight q, the sum of the
+			sizes of the clamped springs changes by -t*q, and the
+			sum of the preferred sizes of the others by q.
+		*/
+		int lo=0,hi=ne;
+		while(lo<hi)
+		{
+			double t=ratios[pivot(ratios,lo,hi)];
+			int lt=lo,gt=hi;
+			double c=clamped,d=slope;
+			for(int j=lo;j<gt;)
+			{
+				double r=ratios[j];
+				if(r<t)
+				{
+					int q=weights[j];
+					c-=r*q;
+					d+=q;
+					swap(ratios,weights,j++,lt++);
+				}
+				else if(r>t)swap(ratios,weights,j,--gt);
+				else j++;
+			}
+			if(c+t*d>=w)
+			{
+				b=t;
+				hi=lt;
+			}
+			else
+			{
+				for(int j=lt;j<gt;j++)
+				{
+					c-=t*weights[j];
+					d+=weights[j];
+				}
+				clamped=c;
+				slope=d;
+				lo=gt;
+			}
+		}
+		this.slope=slope;
+		if(slope>0)return min((w-clamped)/slope,b);
+		return b==Double.POSITIVE_INFINITY?a:b;
+	}
+	private static int pivot(double[] ratios, int lo, int hi)
+	{
+		int mid=(lo+hi)>>>1;
+		int l=lo,h=hi-1;
+		if(ratios[l]>ratios[mid]){int t=l;l=mid;mid=t;}
+		if(ratios[mid]>ratios[h])
+		{
+			mid=h;
+			if(ratios[l]>ratios[mid])mid=l;
+		}
+		return mid;
+	}
+	private static void swap(double[] ratios, int[] weights, int i,
+			int j)
+	{
+		double r=ratios[i];
+		ratios[i]=ratios[j];
+		ratios[j]=r;
+		int q=weights[i];
+		weights[i]=weights[j];
+		weights[j]=q;
+	}
+}
@@ -0,0 +1,162 @@
+/*
+	------------------------------------------------
+	SpanSolver.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import static java.lang.Math.*;
+/**
+	A <code>SpanSolver</code> enlarges the springs of the rows or the 
+	columns of a grid so that each cell that spans more than one of 
+	them fits in the spanned rows or columns.
+	<p>
+	The minimum, maximum and preferred sizes of the springs, the sums 
+	of these sizes over the springs which are not rigid, and the number
+	of such springs, are kept as prefix sums, so the aggregate sizes of
+	the springs spanned by a cell are found in constant time. A cell
+	whose spring is larger than the aggregate spring of the rows or 
+	columns it spans distributes the excess in proportion to the sizes
+	of the non-rigid springs, which takes time proportional to the 
+	number of springs spanned. Only the prefix sums from the first 
+	modified spring onwards are then invalidated, and they are rebuilt 
+	as needed by the next cell, so that adding the cells of a grid
+	row by row takes time proportional to the size of the grid. 
+	</p>
+	<p>
+	Since each cell enlarges the springs left by the cells added before
+	it, the springs depend on the order of the cells. The grids add 
+	them in the order in which the earlier versions of this library
+	visited them, and the springs are the same as those computed by 
+	these versions, except in one case. If the spanned springs all have
+	zero size, and none of them is rigid, the earlier versions divided
+	the size of the cell by the number of rigid springs, i.e. by zero, 
+	and failed with an <code>ArithmeticException</code>. The size is 
+	instead divided equally among the spanned springs.
+	</p>
+**/
+final class SpanSolver
+{
+	private int coordinate;
+	private BoundSpring[] e;
+	private int n;
+	private long[][] sizes, flexSizes;
+	private int[] flexCount;
+	private int valid;
+/**
+	Creates a solver for the spans along the given coordinate.
+
+	@param coordinate 0 for the columns (widths), 1 for the rows 
+	(heights).
+**/
+	SpanSolver(int coordinate)
+	{
+		this.coordinate=coordinate;
+		sizes=new long[3][];
+		flexSizes=new long[3][];
+	}
+/**
+	Starts the solution for a new set of springs.
+
+	@param springs the springs of the rows or columns, which are 
+	modified by the subsequent calls to 
+	{@link pagelayout.SpanSolver#add add}.
+	@param n the number of springs.
+**/
+	void reset(BoundSpring[] springs, int n)
+	{
+		e=springs;
+		this.n=n;
+		if((flexCount==null)||(flexCount.length<n+1))
+		{
+			for(int t=0;t<3;t++)
+			{
+				sizes[t]=new long[n+1];
+				flexSizes[t]=new long[n+1];
+			}
+			flexCount=new int[n+1];
+		}
+		valid=0;
+	}
+/**
+	Enlarges the springs spanned by a cell, if needed, to accomodate 
+	the spring of the cell.
+
+	@param bs the spring of the cell.
+	@param beg the index of the first spanned row or column.
+	@param nspan the number of rows or columns spanned.
+**/
+	void add(BoundSpring bs, int beg, int nspan)
+	{
+		if(nspan<=1)return;
+		int end=min(beg+nspan,n);
+		nspan=end-beg;
+		for(int type=0;type<3;type++)
+		{
+			extend(end);
+			int hs=(int)min(sizes[type][end]-sizes[type][beg],
+					Cell.MAX);
+			int es=bs.getSize(type,coordinate);
+			if(es<=hs)continue;
+			int nf=flexCount[end]-flexCount[beg];
+			if(nf==0)
+			{
+				BoundSpring last=e[end-1];
+				last.setSize((hs==0?es:
+					last.getSize(type,coordinate)+es-hs),
+					type,coordinate);
+			}
+			else if(hs==0)
+			{
+				int nr=nspan-nf;
+				int d=(nr>0?es/nr:(int)round((double)es/nf));
+				for(int i=beg;i<end;i++)
+				  if(!e[i].isFixed(coordinate))
+					e[i].setSize(d,type,coordinate);
+			}
+			else
+			{
+				long fs=flexSizes[type][end]-flexSizes[type][beg];
+				double f=(double)(es-hs)/(double)fs;
+				for(int i=beg;i<end;i++)
+				{
+					if(e[i].isFixed(coordinate))continue;
+					int v=e[i].getSize(type,coordinate);
+					e[i].setSize((int)round(f*v+v),
+						type,coordinate);
+				}
+			}
+			if(valid>beg)valid=beg;
+		}
+	}
+/**
+	Brings the prefix sums up to date for the first <code>k</code> 
+	springs.
+**/
+	private void extend(int k)
+	{
+		for(int i=valid;i<k;i++)
+		{
+			BoundSpring s=e[i];
+			boolean flexible=!s.isFixed(coordinate);
+			flexCount[i+1]=flexCount[i]+(flexible?1:0);
+			for(int t=0;t<3;t++)
+			{
+				int v=s.getSize(t,coordinate);
+				sizes[t][i+1]=sizes[t][i]+v;
+				flexSizes[t][i+1]=flexSizes[t][i]+
+							(flexible?v:0);
+			}
+		}
+		if(valid<k)valid=k;
+	}
+}
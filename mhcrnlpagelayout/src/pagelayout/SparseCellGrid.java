@@ -0,0 +1,560 @@
+/*
+	------------------------------------------------
+	SparseCellGrid.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import java.util.*;
+import javax.swing.*;
+import javax.swing.event.*;
+/**
+	<p>
+	A <code>SparseCellGrid</code> is a rectangular grid of cells, like
+	a {@link pagelayout.CellGrid CellGrid}, in which only the 
+	occupied elements are stored. The spans and the alignments are kept
+	with each occupied element, so the memory used by the grid, and 
+	the time taken to compute its spring and to lay it out, depend 
+	upon the number of cells that have been added to it, and not upon 
+	the number of its rows times the number of its columns. It is meant
+	for large grids, such as a data entry form with thousands of rows,
+	most of whose elements are empty.
+	</p>
+
+	<p>
+	The cells are placed in the grid by calling one of the 
+	{@link pagelayout.SparseCellGrid#add(int,int,Cell,int,int) add} 
+	methods with the row and column indices of the element, and,
+	optionally, the number of columns and rows that the cell spans.
+	</p>
+
+	<p>
+	If the grid is placed in a container which is the view of a 
+	<code>JScrollPane</code>, the grid may be made viewport aware by
+	calling {@link pagelayout.SparseCellGrid#setViewportAware 
+	setViewportAware}. The components are then measured and laid out
+	only for the rows which have been visible in the viewport. The 
+	heights of the other rows are estimated from the heights of the
+	rows that have been measured, and the estimates are replaced by the
+	actual heights as the rows are scrolled into view.
+	</p>
+**/
+public class SparseCellGrid extends Cell
+{
+	private final static int INITIAL_ROWS=32;
+	private int nr, nc;
+	private Vector<Entry> entries;
+	private Vector<Vector<Entry>> rows;
+	private int maxVspan;
+	private BoundSpring rowSprings[];
+	private BoundSpring colSprings[];
+	private SpanSolver rowSolver, colSolver;
+	private int colWidths[], rowHeights[];
+	private final SpaceDistributor distributor=new SpaceDistributor();
+	private int colX[], rowY[];
+	private boolean viewportAware;
+	private boolean measured[];
+	private Container container;
+	private JViewport viewport;
+	private ChangeListener scrollListener;
+	private int lastX, lastY, lastWidth, lastHeight;
+/**
+	Creates an empty grid with the given number of rows and columns.
+
+	@param rows the number of rows.
+	@param columns the number of columns.
+**/
+	public SparseCellGrid(int rows, int columns)
+	{
+		if((rows<0)||(columns<0))
+			throw new IllegalArgumentException(
+				"The number of rows and columns of a grid"+
+				" cannot be negative.");
+		nr=rows;
+		nc=columns;
+		entries=new Vector<Entry>();
+		this.rows=new Vector<Vector<Entry>>();
+		this.rows.setSize(nr);
+		maxVspan=1;
+	}
+/**
+	Places a component in the specified element of the grid.
+
+	@param row the row index of the element.
+	@param column the column index of the element.
+	@param component the component.
+**/
+	public void add(int row, int column, Component component)
+	{
+		add(row,column,new ComponentCell(component),1,1);
+	}
+/**
+	Places a cell in the specified element of the grid.
+
+	@param row the row index of the element.
+	@param column the column index of the element.
+	@param cell the cell.
+**/
+	public void add(int row, int column, Cell cell)
+	{
+		add(row,column,cell,1,1);
+	}
+/**
+	Places a cell in the grid so that it occupies the specified 
+	rectangle of elements. The cell, if any, which is already placed at
+	the top left element of the rectangle is replaced.
+
+	@param row the row index of the top left element of the rectangle.
+	@param column the column index of the top left element of the 
+	rectangle.
+	@param cell the cell.
+	@param hspan the number of columns spanned by the cell.
+	@param vspan the number of rows spanned by the cell.
+**/
+	public void add(int row, int column, Cell cell, int hspan, int vspan)
+	{
+		if((row<0)||(row>=nr)||(column<0)||(column>=nc))
+			throw new IllegalArgumentException(
+				"The element ("+row+", "+column+
+				") is outside the grid.");
+		if(cell==null)
+			throw new IllegalArgumentException(
+				"The cell to be added to the grid is null.");
+		Entry e=find(row,column);
+		if(e==null)
+		{
+			e=new Entry();
+			e.row=row;
+			e.column=column;
+			e.halign=e.valign=NO_ALIGNMENT;
+			entries.add(e);
+			Vector<Entry> r=rows.elementAt(row);
+			if(r==null)
+			{
+				r=new Vector<Entry>(4);
+				rows.setElementAt(r,row);
+			}
+			r.add(e);
+		}
+		else indexRemoved(e.cell);
+		e.cell=cell;
+		e.hspan=Math.max(1,Math.min(hspan,nc-column));
+		e.vspan=Math.max(1,Math.min(vspan,nr-row));
+		if(e.vspan>maxVspan)maxVspan=e.vspan;
+		if(cell instanceof CellContainer)
+		{
+			e.halign=cell.getAlignment(0,e.halign);
+			e.valign=cell.getAlignment(1,e.valign);
+		}
+		cell.setParent(this);
+		if(container!=null)cell.addComponentsToContainer(container);
+		invalidatePath();
+	}
+/**
+	Sets the alignments of the cell at the specified element of the grid
+	within the rectangle of the elements that it spans.
+
+	@param row the row index of the element.
+	@param column the column index of the element.
+	@param halign the horizontal alignment.
+	@param valign the vertical alignment.
+**/
+	public void setAlignment(int row, int column, int halign, int valign)
+	{
+		Entry e=find(row,column);
+		if(e==null)return;
+		e.halign=CellContainer.limitAlignment(halign,true);
+		e.valign=CellContainer.limitAlignment(valign,false);
+		invalidatePath();
+	}
+/**
+	Makes the grid viewport aware. If the grid is within a 
+	<code>JScrollPane</code>, the components of only those rows that
+	have been visible are measured and laid out. 
+
+	@param flag <code>true</code> to make the grid viewport aware, 
+	<code>false</code> otherwise. The default value is 
+	<code>false</code>.
+**/
+	public void setViewportAware(boolean flag)
+	{
+		if(flag==viewportAware)return;
+		viewportAware=flag;
+		measured=null;
+		if(!flag&&(viewport!=null))
+		{
+			viewport.removeChangeListener(scrollListener);
+			viewport=null;
+		}
+		invalidatePath();
+	}
+/**
+	Returns the cell at the given row and column indices.
+
+	@param row the row index of the cell to be retrieved.
+	@param column the column index of the cell to be retrieved.
+
+	@return The cell at the given row and column indices, or 
+	<code>null</code> if no cell has been placed there.
+**/
+	public Cell getCell(int row, int column)
+	{
+		Entry e=find(row,column);
+		return (e==null?null:e.cell);
+	}
+/**
+	Returns the number of rows in the grid.
+	@return The number of rows in the grid.
+**/
+	public int numberOfRows()
+	{
+		return nr;
+	}
+/**
+	Returns the number of columns in the grid.
+	@return The number of  columns in the grid.
+**/
+	public int numberOfColumns()
+	{
+		return nc;
+	}
+/**
+	Returns the number of cells that have been placed in the grid.
+	@return The number of non-empty elements of the grid.
+**/
+	public int numberOfChildren()
+	{
+		return entries.size();
+	}
+/**
+	Returns the cell with the given index. The cells are indexed in the
+	order in which they were added to the grid.
+
+	@param index the index of the cell.
+	@return The cell with the given index.
+**/
+	public Cell getChildAt(int index)
+	{
+		return entries.elementAt(index).cell;
+	}
+/**
+	Replaces the cell with the given index with a new cell, or
+	removes it from the grid if the new cell is <code>null</code>.
+
+	@param index the index of the cell to be replaced.
+	@param newCell the cell that replaces the current cell.
+	@param parent the container in which the components of the cells are placed.
+	@return <code>true</code> if the replacement was successful, otherwise <code>false</code>.
+**/
+	public boolean replaceChild(int index, Cell newCell, Container parent)
+	{
+		if((index<0)||(index>=entries.size()))return false;
+		Entry e=entries.elementAt(index);
+		indexRemoved(e.cell);
+		e.cell.removeAllComponents(parent);
+		if(newCell==null)
+		{
+			entries.removeElementAt(index);
+			rows.elementAt(e.row).remove(e);
+		}
+		else
+		{
+			e.cell=newCell;
+			newCell.setParent(this);
+			if(parent!=null)newCell.addComponentsToContainer(parent);
+		}
+		invalidatePath();
+		return true;
+	}
+	public void addComponentsToContainer(Container container)
+	{
+		this.container=container;
+		super.addComponentsToContainer(container);
+	}
+/**
+	Computes the two-dimensional spring associated with the grid 
+	from the springs of the cells that have been placed in it.
+	If the grid is viewport aware, the springs of the rows that have
+	not been measured are estimated from those that have been.
+
+	@return The computed two-dimensional spring.
+**/
+	public BoundSpring computeBoundSpring()
+	{
+		if((rowSprings==null)||(rowSprings.length!=nr))
+			rowSprings=new BoundSpring[nr];
+		if((colSprings==null)||(colSprings.length!=nc))
+			colSprings=new BoundSpring[nc];
+		BoundSpring rh[]=rowSprings;
+		BoundSpring cw[]=colSprings;
+		Arrays.fill(cw,null);
+		int numMeasured=0;
+		int hMin=0, hPref=0, hMax=0;
+		for(int i=0;i<nr;i++)
+		{
+			rh[i]=null;
+			if(!isMeasured(i))continue;
+			Vector<Entry> r=rows.elementAt(i);
+			int n=(r==null?0:r.size());
+			for(int k=0;k<n;k++)
+			{
+				Entry e=r.elementAt(k);
+				if(e.vspan>1)continue;
+				BoundSpring bs=e.cell.getBoundSpring();
+				if(rh[i]==null)rh[i]=new BoundSpring(bs);
+				else BoundSpring.addx(rh[i],bs);
+			}
+			if(rh[i]==null)rh[i]=new BoundSpring((BoundSpring)null);
+			numMeasured++;
+			hMin+=rh[i].getMinimumHeight();
+			hPref+=rh[i].getPreferredHeight();
+			hMax+=rh[i].getMaximumHeight();
+		}
+		if(numMeasured<nr)
+		{
+			int m=Math.max(numMeasured,1);
+			for(int i=0;i<nr;i++)
+			  if(rh[i]==null)
+			    rh[i]=new BoundSpring(0,0,0,hMin/m,hPref/m,hMax/m,
+						false);
+		}
+		int n=entries.size();
+		for(int k=0;k<n;k++)
+		{
+			Entry e=entries.elementAt(k);
+			if((e.hspan>1)||!isMeasured(e.row))continue;
+			BoundSpring bs=e.cell.getBoundSpring();
+			int j=e.column;
+			if(cw[j]==null)cw[j]=new BoundSpring(bs);
+			else BoundSpring.addy(cw[j],bs);
+		}
+		for(int j=0;j<nc;j++)
+			if(cw[j]==null)cw[j]=new BoundSpring((BoundSpring)null);
+		if(rowSolver==null)
+		{
+			rowSolver=new SpanSolver(1);
+			colSolver=new SpanSolver(0);
+		}
+		rowSolver.reset(rh,nr);
+		colSolver.reset(cw,nc);
+		for(int k=0;k<n;k++)
+		{
+			Entry e=entries.elementAt(k);
+			if(!isMeasured(e.row))continue;
+			BoundSpring bs=e.cell.getBoundSpring();
+			rowSolver.add(bs,e.row,e.vspan);
+			colSolver.add(bs,e.column,e.hspan);
+		}
+		BoundSpring vert=new BoundSpring(nr>0?rh[0]:null);
+		for(int i=1;i<nr;i++)BoundSpring.addy(vert,rh[i]);
+		BoundSpring horiz=new BoundSpring(nc>0?cw[0]:null);
+		for(int j=1;j<nc;j++)BoundSpring.addx(horiz,cw[j]);
+		return BoundSpring.outerProduct(horiz,vert);
+	}
+/**
+	Lays out the cells of the grid within the specified rectangle of the
+	container. If the grid is viewport aware, only the cells of the
+	rows that are visible in the viewport are laid out.
+
+	@param x the x-coordinate of the top left of the rectangle.
+	@param y the y-coordinate of the top left of the rectangle.
+	@param width the width of the rectangle.
+	@param height the height of the rectangle.
+**/
+	protected void setBounds(int x, int y, int width, int height)
+	{
+		lastX=x;
+		lastY=y;
+		lastWidth=width;
+		lastHeight=height;
+		BoundSpring gridSpring=getBoundSpring();
+		colWidths=SpaceDistributor.distribute(colSprings,nc,width,
+			gridSpring.getMinimumWidth(),0,colWidths,distributor);
+		rowHeights=SpaceDistributor.distribute(rowSprings,nr,height,
+			gridSpring.getMinimumHeight(),1,rowHeights,distributor);
+		colX=offsets(colWidths,nc,colX);
+		rowY=offsets(rowHeights,nr,rowY);
+		int first=0;
+		int last=nr-1;
+		Rectangle r=(viewportAware?getVisibleRectangle():null);
+		if(r!=null)
+		{
+			first=findRow(r.y-y);
+			last=findRow(r.y+r.height-y);
+		}
+		boolean refine=false;
+		for(int i=Math.max(0,first-maxVspan+1);i<=last;i++)
+		{
+			if(!isMeasured(i))
+			{
+				if(i>=first)refine=true;
+				continue;
+			}
+			Vector<Entry> row=rows.elementAt(i);
+			int n=(row==null?0:row.size());
+			for(int k=0;k<n;k++)
+			{
+				Entry e=row.elementAt(k);
+				if((i<first)&&(i+e.vspan<=first))continue;
+				int j=e.column;
+				CellGrid.setBounds(e.cell,x+colX[j],y+rowY[i],
+					colX[j+e.hspan]-colX[j],
+					rowY[i+e.vspan]-rowY[i],
+					e.halign,e.valign,i,j);
+			}
+		}
+		if(refine)refine(first,last);
+	}
+	public Cell duplicate(ComponentDuplicator c)
+	{
+		SparseCellGrid grid=new SparseCellGrid(nr,nc);
+		int n=entries.size();
+		for(int k=0;k<n;k++)
+		{
+			Entry e=entries.elementAt(k);
+			grid.add(e.row,e.column,e.cell.duplicate(c),
+					e.hspan,e.vspan);
+			grid.setAlignment(e.row,e.column,e.halign,e.valign);
+		}
+		grid.setViewportAware(viewportAware);
+		return grid;
+	}
+	public void xmlserialize(XMLPrintStream out, ComponentXMLSerializer c)
+	{
+		String element="Cell";
+		out.beginElement(element);
+		out.addAttribute("TypeName","SparseGrid");
+		out.addAttribute("name",getName());
+		out.addAttribute("rows",nr);
+		out.addAttribute("columns",nc);
+		out.addAttribute("viewportAware",viewportAware);
+		out.beginChildrenList(element);
+		int n=entries.size();
+		for(int k=0;k<n;k++)
+		{
+			Entry e=entries.elementAt(k);
+			String elem="GridElement";
+			out.beginElement(elem);
+			out.addAttribute("row",e.row);
+			out.addAttribute("column",e.column);
+			out.addAttribute("hspan",e.hspan);
+			out.addAttribute("vspan",e.vspan);
+			out.addAttribute("xalignment",e.halign);
+			out.addAttribute("yalignment",e.valign);
+			out.beginChildrenList(elem);
+			e.cell.xmlserialize(out,c);
+			out.endChildrenList(elem);
+			out.endElement(elem);
+		}
+		out.endChildrenList(element);
+		out.endElement(element);
+	}
+	private Entry find(int row, int column)
+	{
+		if((row<0)||(row>=nr))return null;
+		Vector<Entry> r=rows.elementAt(row);
+		int n=(r==null?0:r.size());
+		for(int k=0;k<n;k++)
+		{
+			Entry e=r.elementAt(k);
+			if(e.column==column)return e;
+		}
+		return null;
+	}
+	private boolean isMeasured(int row)
+	{
+		if(!viewportAware)return true;
+		if((measured==null)||(measured.length!=nr))
+		{
+			measured=new boolean[nr];
+			for(int i=0;(i<nr)&&(i<INITIAL_ROWS);i++)
+				measured[i]=true;
+		}
+		return measured[row];
+	}
+	private static int[] offsets(int[] sizes, int n, int[] buffer)
+	{
+		int[] s=((buffer==null)||(buffer.length!=n+1)?
+				new int[n+1]:buffer);
+		s[0]=0;
+		for(int i=0;i<n;i++)s[i+1]=s[i]+sizes[i];
+		return s;
+	}
+/**
+	Returns the index of the row that contains the given 
+	y-coordinate relative to the top of the grid.
+**/
+	private int findRow(int y)
+	{
+		int lo=0;
+		int hi=nr-1;
+		while(lo<hi)
+		{
+			int mid=(lo+hi+1)>>>1;
+			if(rowY[mid]<=y)lo=mid;
+			else hi=mid-1;
+		}
+		return lo;
+	}
+/**
+	Returns the rectangle of the container that is visible in the
+	enclosing viewport, or <code>null</code> if there is no viewport.
+**/
+	private Rectangle getVisibleRectangle()
+	{
+		if(container==null)return null;
+		if(viewport==null)
+		{
+			viewport=(JViewport)SwingUtilities.getAncestorOfClass(
+					JViewport.class,container);
+			if(viewport==null)return null;
+			if(scrollListener==null)scrollListener=new ScrollListener();
+			viewport.addChangeListener(scrollListener);
+		}
+		Component view=viewport.getView();
+		if(view==null)return null;
+		return SwingUtilities.convertRectangle(view,
+				viewport.getViewRect(),container);
+	}
+/**
+	Marks the given rows as measured so that their actual heights are
+	used when the spring of the grid is next computed, and requests the
+	container to be validated again.
+**/
+	private void refine(int first, int last)
+	{
+		for(int i=first;i<=last;i++)measured[i]=true;
+		invalidatePath();
+		if(container instanceof JComponent)
+			((JComponent)container).revalidate();
+		else container.invalidate();
+	}
+	private class ScrollListener implements ChangeListener
+	{
+		public void stateChanged(ChangeEvent event)
+		{
+			if((container==null)||!viewportAware)return;
+			LayoutManager lm=container.getLayout();
+			if(lm instanceof PageLayout)
+				((PageLayout)lm).discardLayoutCache();
+			if(getBoundSpring()==null)return;
+			setBounds(lastX,lastY,lastWidth,lastHeight);
+			container.repaint();
+		}
+	}
+	private static class Entry
+	{
+		int row, column, hspan, vspan, halign, valign;
+		Cell cell;
+	}
+}
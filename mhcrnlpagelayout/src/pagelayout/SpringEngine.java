@@ -0,0 +1,223 @@
+/*
+	------------------------------------------------
+	SpringEngine.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.util.*;
+import static java.lang.Math.*;
+/**
+	A <code>SpringEngine</code> computes the two-dimensional springs
+	of the rows and columns in a tree of cells without the recursive
+	calls to {@link pagelayout.Cell#computeBoundSpring computeBoundSpring}.
+	The tree is first flattened into parallel arrays that hold, for each
+	cell, the minimum, preferred and maximum width and height, the
+	index of its parent, and the range of the indices of its children.
+	Since the parent of a cell is always stored before the cell itself,
+	the springs of all the cells are then computed in a single pass
+	over the arrays in the reverse order.
+	<p>
+	Only the rows and columns, which account for most of the cells in
+	a typical tree, are flattened. The springs of the other cells, and
+	of the rows and columns whose springs are still valid, are
+	obtained from their {@link pagelayout.Cell#getBoundSpring
+	getBoundSpring} method. The result for each row or column is
+	stored in a {@link pagelayout.BoundSpring BoundSpring} object which
+	is then used by the cell exactly as if it had been created by the
+	{@link pagelayout.Cell#computeBoundSpring computeBoundSpring} method.
+	The arrays are kept between calls, so that they are allocated only
+	when the tree grows.
+	</p>
+**/
+class SpringEngine
+{
+	private final static int LEAF=0, ROW=1, COLUMN=2;
+	private Cell[] cells;
+	private int[] kind, parent, firstChild, childCount, offset;
+	private int[] wMin, wPref, wMax, hMin, hPref, hMax;
+	private boolean[] isGap;
+	private int[] children;
+	private int size, childSize;
+	SpringEngine()
+	{
+		allocate(64);
+		children=new int[64];
+	}
+/**
+	Computes the springs of the rows and columns in the tree of cells
+	with the given root, which have been invalidated since the
+	springs were last computed.
+
+	@param root the root of the tree.
+
+	@return The two-dimensional spring of the root.
+**/
+	BoundSpring compute(Cell root)
+	{
+		if(root.boundSpring!=null)return root.getBoundSpring();
+		flatten(root);
+		for(int i=size-1;i>=0;i--)
+		{
+			if(kind[i]==LEAF)load(i,cells[i].getBoundSpring());
+			else combine(i);
+		}
+		Arrays.fill(cells,0,size,null);
+		size=childSize=0;
+		return root.getBoundSpring();
+	}
+	private void flatten(Cell root)
+	{
+		size=childSize=0;
+		add(root,-1);
+		for(int i=0;i<size;i++)
+		{
+			Cell cell=cells[i];
+			if(cell.boundSpring!=null)continue;
+			int[] offsets=null;
+			if(cell.getClass()==Row.class)
+			{
+				kind[i]=ROW;
+				offsets=((Row)cell).prepareSprings();
+			}
+			else if(cell.getClass()==Column.class)
+			{
+				kind[i]=COLUMN;
+				((Column)cell).prepareSprings();
+			}
+			else continue;
+			int n=cell.numberOfChildren();
+			if(childSize+n>children.length)
+				children=Arrays.copyOf(children,
+					max(2*children.length,childSize+n));
+			firstChild[i]=childSize;
+			childCount[i]=n;
+			childSize+=n;
+			for(int k=0;k<n;k++)
+			{
+				int j=add(cell.getChildAt(k),i);
+				if(offsets!=null)offset[j]=offsets[k];
+				children[firstChild[i]+k]=j;
+			}
+		}
+	}
+	private int add(Cell cell, int parentIndex)
+	{
+		if(size==cells.length)allocate(2*size);
+		int i=size++;
+		cells[i]=cell;
+		kind[i]=LEAF;
+		parent[i]=parentIndex;
+		firstChild[i]=childCount[i]=offset[i]=0;
+		return i;
+	}
+	private void combine(int i)
+	{
+		int n=childCount[i];
+		if(n==0)
+		{
+			install(i,new BoundSpring((BoundSpring)null));
+			return;
+		}
+		int s=firstChild[i];
+		int c=children[s];
+		int o=offset[c];
+		int w0=min(wMin[c],Cell.MAX);
+		int w1=min(wPref[c],Cell.MAX);
+		int w2=min(wMax[c],Cell.MAX);
+		int h0=min(hMin[c]+o,Cell.MAX);
+		int h1=min(hPref[c]+o,Cell.MAX);
+		int h2=min(hMax[c]+o,Cell.MAX);
+		boolean gap=isGap[c];
+		if(kind[i]==ROW)
+		{
+			for(int k=1;k<n;k++)
+			{
+				c=children[s+k];
+				o=offset[c];
+				w0=min(w0+wMin[c],Cell.MAX);
+				w1=min(w1+wPref[c],Cell.MAX);
+				w2=min(w2+wMax[c],Cell.MAX);
+				h0=max(h0,hMin[c]+o);
+				h1=max(h1,hPref[c]+o);
+				h2=max(h2,hMax[c]+o);
+				gap=gap&&isGap[c];
+			}
+		}
+		else
+		{
+			for(int k=1;k<n;k++)
+			{
+				c=children[s+k];
+				w0=max(w0,wMin[c]);
+				w1=max(w1,wPref[c]);
+				w2=max(w2,wMax[c]);
+				h0=min(h0+hMin[c],Cell.MAX);
+				h1=min(h1+hPref[c],Cell.MAX);
+				h2=min(h2+hMax[c],Cell.MAX);
+				gap=gap&&isGap[c];
+			}
+		}
+		install(i,new BoundSpring(w0,w1,w2,h0,h1,h2,gap));
+	}
+	private void install(int i, BoundSpring spring)
+	{
+		Cell cell=cells[i];
+		cell.setBoundSpring(spring);
+		if(kind[i]==ROW)((Row)cell).linkChildSprings();
+		else ((Column)cell).linkChildSprings();
+		load(i,cell.getBoundSpring());
+	}
+	private void load(int i, BoundSpring bs)
+	{
+		wMin[i]=bs.getMinimumWidth();
+		wPref[i]=bs.getPreferredWidth();
+		wMax[i]=bs.getMaximumWidth();
+		hMin[i]=bs.getMinimumHeight();
+		hPref[i]=bs.getPreferredHeight();
+		hMax[i]=bs.getMaximumHeight();
+		isGap[i]=bs.isGap();
+	}
+	private void allocate(int n)
+	{
+		if(cells==null)
+		{
+			cells=new Cell[n];
+			kind=new int[n];
+			parent=new int[n];
+			firstChild=new int[n];
+			childCount=new int[n];
+			offset=new int[n];
+			wMin=new int[n];
+			wPref=new int[n];
+			wMax=new int[n];
+			hMin=new int[n];
+			hPref=new int[n];
+			hMax=new int[n];
+			isGap=new boolean[n];
+			return;
+		}
+		cells=Arrays.copyOf(cells,n);
+		kind=Arrays.copyOf(kind,n);
+		parent=Arrays.copyOf(parent,n);
+		firstChild=Arrays.copyOf(firstChild,n);
+		childCount=Arrays.copyOf(childCount,n);
+		offset=Arrays.copyOf(offset,n);
+		wMin=Arrays.copyOf(wMin,n);
+		wPref=Arrays.copyOf(wPref,n);
+		wMax=Arrays.copyOf(wMax,n);
+		hMin=Arrays.copyOf(hMin,n);
+		hPref=Arrays.copyOf(hPref,n);
+		hMax=Arrays.copyOf(hMax,n);
+		isGap=Arrays.copyOf(isGap,n);
+	}
+}
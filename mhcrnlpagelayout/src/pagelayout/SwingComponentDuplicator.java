@@ -0,0 +1,202 @@
+/*
+	------------------------------------------------
+	SwingComponentDuplicator.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import javax.swing.*;
+import javax.swing.plaf.UIResource;
+/**
+	A {@link pagelayout.ComponentDuplicator ComponentDuplicator} for the
+	common Swing components. The labels, buttons, text fields, text 
+	areas, combo boxes, separators and scroll panes are copied with
+	the properties which affect their sizes and contents, and the
+	other components with the no-argument constructors of their
+	classes. The name, the enabled and visible flags, the explicitly
+	set fonts, colors and sizes, and the borders and tool tips of the
+	Swing components, are copied for all the components. The listeners
+	are not copied.
+**/
+public class SwingComponentDuplicator implements ComponentDuplicator
+{
+	public Component dupComponent(Component c)
+	{
+		Component d=createComponent(c);
+		copyProperties(c,d);
+		return d;
+	}
+	public Container dupContainer(Container c)
+	{
+		Container d;
+		if(c instanceof JTabbedPane)
+		{
+			JTabbedPane p=(JTabbedPane)c;
+			d=new JTabbedPane(p.getTabPlacement(),
+					p.getTabLayoutPolicy());
+		}
+		else d=(Container)newInstance(c);
+		copyProperties(c,d);
+		return d;
+	}
+/**
+	Creates the copy of a component, without the properties copied
+	by {@link pagelayout.SwingComponentDuplicator#copyProperties 
+	copyProperties}. May be over-ridden to copy other kinds of 
+	components.
+
+	@param c the component to be copied.
+	@return The copy.
+**/
+	protected Component createComponent(Component c)
+	{
+		if(c instanceof JLabel)
+		{
+			JLabel l=(JLabel)c;
+			JLabel d=(JLabel)newInstance(c);
+			d.setText(l.getText());
+			d.setIcon(l.getIcon());
+			d.setHorizontalAlignment(l.getHorizontalAlignment());
+			d.setVerticalAlignment(l.getVerticalAlignment());
+			d.setHorizontalTextPosition(l.getHorizontalTextPosition());
+			d.setVerticalTextPosition(l.getVerticalTextPosition());
+			d.setIconTextGap(l.getIconTextGap());
+			d.setDisplayedMnemonic(l.getDisplayedMnemonic());
+			return d;
+		}
+		if(c instanceof AbstractButton)
+		{
+			AbstractButton b=(AbstractButton)c;
+			AbstractButton d=(AbstractButton)newInstance(c);
+			d.setText(b.getText());
+			d.setIcon(b.getIcon());
+			d.setSelected(b.isSelected());
+			d.setMnemonic(b.getMnemonic());
+			d.setActionCommand(b.getActionCommand());
+			d.setHorizontalAlignment(b.getHorizontalAlignment());
+			d.setVerticalAlignment(b.getVerticalAlignment());
+			d.setHorizontalTextPosition(b.getHorizontalTextPosition());
+			d.setVerticalTextPosition(b.getVerticalTextPosition());
+			d.setIconTextGap(b.getIconTextGap());
+			if(!(b.getMargin() instanceof UIResource))
+				d.setMargin(b.getMargin());
+			return d;
+		}
+		if(c instanceof JTextField)
+		{
+			JTextField t=(JTextField)c;
+			JTextField d=(JTextField)newInstance(c);
+			d.setColumns(t.getColumns());
+			d.setText(t.getText());
+			d.setEditable(t.isEditable());
+			d.setHorizontalAlignment(t.getHorizontalAlignment());
+			if(c instanceof JPasswordField)
+				((JPasswordField)d).setEchoChar(
+					((JPasswordField)c).getEchoChar());
+			return d;
+		}
+		if(c instanceof JTextArea)
+		{
+			JTextArea t=(JTextArea)c;
+			JTextArea d=(JTextArea)newInstance(c);
+			d.setRows(t.getRows());
+			d.setColumns(t.getColumns());
+			d.setText(t.getText());
+			d.setEditable(t.isEditable());
+			d.setLineWrap(t.getLineWrap());
+			d.setWrapStyleWord(t.getWrapStyleWord());
+			d.setTabSize(t.getTabSize());
+			return d;
+		}
+		if(c instanceof JComboBox)
+		{
+			JComboBox<?> b=(JComboBox<?>)c;
+			@SuppressWarnings("unchecked")
+			JComboBox<Object> d=(JComboBox<Object>)newInstance(c);
+			int n=b.getItemCount();
+			for(int i=0;i<n;i++)d.addItem(b.getItemAt(i));
+			d.setEditable(b.isEditable());
+			d.setMaximumRowCount(b.getMaximumRowCount());
+			d.setPrototypeDisplayValue(b.getPrototypeDisplayValue());
+			if(n>0)d.setSelectedIndex(b.getSelectedIndex());
+			return d;
+		}
+		if(c instanceof JSeparator)
+		{
+			JSeparator s=(JSeparator)c;
+			JSeparator d=(JSeparator)newInstance(c);
+			d.setOrientation(s.getOrientation());
+			return d;
+		}
+		if(c instanceof JScrollPane)
+		{
+			JScrollPane s=(JScrollPane)c;
+			JScrollPane d=(JScrollPane)newInstance(c);
+			Component view=s.getViewport().getView();
+			if(view!=null)d.setViewportView(dupComponent(view));
+			d.setHorizontalScrollBarPolicy(
+				s.getHorizontalScrollBarPolicy());
+			d.setVerticalScrollBarPolicy(
+				s.getVerticalScrollBarPolicy());
+			return d;
+		}
+		return newInstance(c);
+	}
+/**
+	Copies the properties common to all components from a component
+	to its copy.
+
+	@param c the component.
+	@param d the copy.
+**/
+	protected void copyProperties(Component c, Component d)
+	{
+		d.setName(c.getName());
+		d.setEnabled(c.isEnabled());
+		d.setVisible(c.isVisible());
+		if(c.isFontSet())d.setFont(c.getFont());
+		if(c.isForegroundSet())d.setForeground(c.getForeground());
+		if(c.isBackgroundSet())d.setBackground(c.getBackground());
+		if(c.isPreferredSizeSet())d.setPreferredSize(c.getPreferredSize());
+		if(c.isMinimumSizeSet())d.setMinimumSize(c.getMinimumSize());
+		if(c.isMaximumSizeSet())d.setMaximumSize(c.getMaximumSize());
+		if((c instanceof JComponent)&&(d instanceof JComponent))
+		{
+			JComponent jc=(JComponent)c;
+			JComponent jd=(JComponent)d;
+			if(!(jc.getBorder() instanceof UIResource))
+				jd.setBorder(jc.getBorder());
+			jd.setToolTipText(jc.getToolTipText());
+		}
+	}
+/**
+	Creates a component of the same class as the given component with
+	the no-argument constructor of the class.
+
+	@param c the component.
+	@return The created component.
+**/
+	protected Component newInstance(Component c)
+	{
+		try
+		{
+			return c.getClass().getDeclaredConstructor().newInstance();
+		}
+		catch(Exception e)
+		{
+			throw new IllegalArgumentException(
+				"Cannot create a component of the class "+
+				c.getClass().getName(),e);
+		}
+	}
+}
@@ -17,11 +17,23 @@
 */
 package pagelayout;
 import java.awt.*;
+import java.awt.event.*;
 import javax.swing.*;
+import javax.swing.event.*;
 import java.util.*;
 /**
 	TabbedPaneCell encloses a JTabbedPane.
 
+	The contents of a tab may be registered with a 
+	{@link pagelayout.CellSupplier CellSupplier} instead of a cell. 
+	Such a tab is represented by an empty panel with an estimated
+	size till it is first selected, when the cell is created and
+	laid out in the panel. The tabs which have not yet been selected 
+	may also be built in the background by 
+	{@link pagelayout.TabbedPaneCell#setPrefetchDelay setPrefetchDelay}.
+	The background building is stopped when the cell is removed from
+	its container, or when the tabbed pane is no longer displayable.
+
 	@version  1.16  05/10/2008
 **/
 
@@ -30,6 +42,8 @@ public class TabbedPaneCell extends Cell
 	private Vector<Cell> cells;
 	private Vector<Boolean> wrappedComponentFlag;
 	private JTabbedPane pane;
+	private Hashtable<Component,CellSupplier> pendingTabs;
+	private javax.swing.Timer prefetchTimer;
 	public TabbedPaneCell ()
 	{
 		this(new JTabbedPane());
@@ -39,6 +53,9 @@ public class TabbedPaneCell extends Cell
 		this.pane=container;
 		cells=new Vector<Cell>();
 		wrappedComponentFlag=new Vector<Boolean>();
+		pendingTabs=new Hashtable<Component,CellSupplier>();
+		pane.addChangeListener(new TabSelectionListener());
+		pane.addHierarchyListener(new DisplayabilityListener());
 	}
 	public void add(String name, Component p)
 	{
@@ -66,9 +83,177 @@ public class TabbedPaneCell extends Cell
 		p.createLayout(c);
 		p.setParent(this);
 	}
+/**
+	Adds a tab whose cell is created by the specified supplier 
+	when the tab is first selected. 
+
+	@param name the title of the tab.
+	@param supplier the supplier of the cell.
+**/
+	public void add(String name, CellSupplier supplier)
+	{
+		add(name,supplier,null);
+	}
+/**
+	Adds a tab whose cell is created by the specified supplier 
+	when the tab is first selected. Till then, the preferred
+	size of the tab is the specified estimate.
+
+	@param name the title of the tab.
+	@param supplier the supplier of the cell.
+	@param estimate the estimated preferred size of the tab, or 
+		<code>null</code> if the tab should not affect the size 
+		of the tabbed pane till it is built.
+**/
+	public void add(String name, CellSupplier supplier, Dimension estimate)
+	{
+		int n=wrappedComponentFlag.size();
+		int m=pane.getTabCount();
+		for(int i=n;i<m;i++)
+			wrappedComponentFlag.add(Boolean.FALSE);
+		wrappedComponentFlag.add(Boolean.TRUE);
+		CellManagedPanel c=new CellManagedPanel();
+		c.setPreferredSize(estimate==null?new Dimension(0,0):estimate);
+		c.setMinimumSize(new Dimension(0,0));
+		pendingTabs.put(c,supplier);
+		pane.addTab(name,c);
+		if((prefetchTimer!=null)&&!prefetchTimer.isRunning())
+			prefetchTimer.start();
+	}
+/**
+	Creates and lays out the cell of the tab at the specified index
+	if the tab was added with a {@link pagelayout.CellSupplier 
+	CellSupplier} and has not been built yet.
+
+	@param index the index of the tab.
+	@return <code>true</code> if the tab was built by this call.
+**/
+	public boolean buildTab(int index)
+	{
+		Component comp=pane.getComponentAt(index);
+		CellSupplier supplier=(comp==null?null:pendingTabs.remove(comp));
+		if(supplier==null)return false;
+		Cell p=supplier.get();
+		int k=0;
+		for(int i=0;i<index;i++)
+			if(isTabCell(i)&&isTabBuilt(i))k++;
+		cells.insertElementAt(p,k);
+		Container c=(Container)comp;
+		if(PanelCell.class.isInstance(p))
+		{
+			c=(Container)p.getComponent();
+			PanelCell pc=(PanelCell)p;
+			p=pc.getCell();
+			pane.setComponentAt(index,c);
+		}
+		p.createLayout(c);
+		p.setParent(this);
+		invalidatePath();
+		pane.revalidate();
+		pane.repaint();
+		return true;
+	}
+/**
+	Builds all the tabs which have not been built yet.
+**/
+	public void buildAllTabs()
+	{
+		int n=pane.getTabCount();
+		for(int i=0;i<n;i++)buildTab(i);
+	}
+/**
+	Returns <code>false</code> if the tab at the specified index
+	was added with a {@link pagelayout.CellSupplier CellSupplier} 
+	and has not been built yet.
+
+	@param index the index of the tab.
+**/
+	public boolean isTabBuilt(int index)
+	{
+		return !pendingTabs.containsKey(pane.getComponentAt(index));
+	}
+/**
+	Sets the delay after which the tabs which have not yet been
+	selected are built, one tab at a time, in the background. 
+	The delay is restarted each time a tab is selected, so that the
+	tabs are built only while the user is idle.
+
+	@param delay the delay in milliseconds. If it is not positive,
+		the tabs are built only when they are selected, which is
+		the default.
+**/
+	public void setPrefetchDelay(int delay)
+	{
+		if(prefetchTimer!=null)prefetchTimer.stop();
+		prefetchTimer=null;
+		if(delay<=0)return;
+		prefetchTimer=new javax.swing.Timer(delay,new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				if(!prefetchNextTab())prefetchTimer.stop();
+			}
+		});
+		if(!pendingTabs.isEmpty())prefetchTimer.start();
+	}
+	private boolean prefetchNextTab()
+	{
+		int n=pane.getTabCount();
+		for(int i=0;i<n;i++)
+			if(buildTab(i))return true;
+		return false;
+	}
+	private class TabSelectionListener implements ChangeListener
+	{
+		public void stateChanged(ChangeEvent e)
+		{
+			int i=pane.getSelectedIndex();
+			if(i>=0)buildTab(i);
+			if((prefetchTimer!=null)&&prefetchTimer.isRunning())
+				prefetchTimer.restart();
+		}
+	}
+	private class DisplayabilityListener implements HierarchyListener
+	{
+		public void hierarchyChanged(HierarchyEvent e)
+		{
+			if((prefetchTimer==null)||((e.getChangeFlags()&
+				HierarchyEvent.DISPLAYABILITY_CHANGED)==0))return;
+			if(!pane.isDisplayable())prefetchTimer.stop();
+			else if(!pendingTabs.isEmpty())prefetchTimer.start();
+		}
+	}
+/**
+	Returns the cell of a tab which has not been built yet. The 
+	supplier is called only once, and the cell is kept until the
+	tab is built.
+**/
+	private Cell getPendingCell(Component comp)
+	{
+		CellSupplier supplier=pendingTabs.get(comp);
+		if(supplier instanceof SuppliedCell)
+			return ((SuppliedCell)supplier).cell;
+		Cell cell=supplier.get();
+		pendingTabs.put(comp,new SuppliedCell(cell));
+		return cell;
+	}
+	private static class SuppliedCell implements CellSupplier
+	{
+		private Cell cell;
+		SuppliedCell(Cell cell)
+		{
+			this.cell=cell;
+		}
+		public Cell get()
+		{
+			return cell;
+		}
+	}
 	public BoundSpring computeBoundSpring()
 	{
-		boundSpring=new BoundSpring(pane);
+		SizeSnapshot s=getSizeSnapshot();
+		boundSpring=(s==null?new BoundSpring(pane):
+				s.getBoundSpring(pane));
 		return boundSpring;
 	}
 	public void show(String tab)
@@ -82,8 +267,8 @@ public class TabbedPaneCell extends Cell
 	{	
 		if(parent!=pane)
 		{
-			if(pane.getParent()!=parent)
-			parent.add(pane);
+			if(getParentOf(pane)!=parent)
+			addToContainer(pane,parent);
 		}
 	}
 	protected void setBounds(int x, int y, int width, int height)
@@ -92,8 +277,9 @@ public class TabbedPaneCell extends Cell
 	}
 	public Container removeAllComponents(Container parent)
 	{
-		parent=pane.getParent();
-		if(parent!=null) parent.remove(pane);
+		if(prefetchTimer!=null)prefetchTimer.stop();
+		parent=getParentOf(pane);
+		if(parent!=null) removeFromContainer(pane,parent);
 		return pane;
 	}
 	public boolean isComponentCell()
@@ -113,7 +299,13 @@ public class TabbedPaneCell extends Cell
 		for(int i=0;i<n;i++)
 		{
 			Component comp=pane.getComponentAt(i);
-			if(isTabCell(i))
+			CellSupplier supplier=pendingTabs.get(comp);
+			if(supplier instanceof SuppliedCell)
+			  supplier=new SuppliedCell(
+				((SuppliedCell)supplier).cell.duplicate(c));
+			if(supplier!=null)
+			  tc.add(pane.getTitleAt(i),supplier,comp.getPreferredSize());
+			else if(isTabCell(i))
 			  tc.add(pane.getTitleAt(i),
 				getTopLevelCell(comp).duplicate(c));
 			else jtb.addTab(pane.getTitleAt(i),c.dupComponent(comp));
@@ -121,6 +313,10 @@ public class TabbedPaneCell extends Cell
 		}
 		return tc;
 	}
+	void copyTemplateState(Cell copy)
+	{
+		if(getName().length()>0)copy.setName(getName());
+	}
 	public boolean isTabCell(int ind)
 	{
 		if(ind>=wrappedComponentFlag.size())return false;
@@ -143,7 +339,14 @@ public class TabbedPaneCell extends Cell
 				out.addAttribute("name",pane.getTitleAt(i));
 		  		out.beginChildrenList("Tab");
 				Component comp=pane.getComponentAt(i);
-				if(!xmlserialize(comp,out,c))
+				if(!isTabBuilt(i))
+				{
+					Cell cell=getPendingCell(comp);
+					if(PanelCell.class.isInstance(cell))
+						cell=((PanelCell)cell).getCell();
+					cell.xmlserialize(out,c);
+				}
+				else if(!xmlserialize(comp,out,c))
 					c.xmlserialize(out,comp);
 		  		out.endChildrenList("Tab");
 		  		out.endElement("Tab");
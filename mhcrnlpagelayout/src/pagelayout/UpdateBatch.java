@@ -0,0 +1,143 @@
+/*
+	------------------------------------------------
+	UpdateBatch.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+import java.awt.*;
+import java.util.*;
+/**
+	An <code>UpdateBatch</code> collects the changes to the containers
+	made while the tree of cells is modified between the calls to the 
+	{@link pagelayout.PageLayout#beginUpdate beginUpdate} and 
+	{@link pagelayout.PageLayout#endUpdate endUpdate} methods of 
+	<code>PageLayout</code>, and applies them when the outermost batch 
+	is closed.
+	<p>
+	For each component, only the container it should finally belong to
+	is kept, so a component that is removed and added again, e.g. when
+	its cell is moved to another row, stays in its container, and the 
+	components are added and removed one container at a time. The 
+	invalidations of the layouts and the validations of the containers
+	requested during the batch are recorded, and each of them is 
+	performed once.
+	</p>
+**/
+final class UpdateBatch
+{
+	private int depth;
+	private LinkedHashMap<Component,Container> moves;
+	private LinkedHashSet<PageLayout> layouts;
+	private LinkedHashSet<Container> containers;
+	UpdateBatch()
+	{
+		moves=new LinkedHashMap<Component,Container>();
+		layouts=new LinkedHashSet<PageLayout>();
+		containers=new LinkedHashSet<Container>();
+	}
+	void begin()
+	{
+		depth++;
+	}
+/**
+	Closes a batch.
+
+	@return <code>true</code> if the outermost batch has been closed.
+**/
+	boolean end()
+	{
+		return --depth==0;
+	}
+/**
+	Returns the container to which the given component will belong
+	when the batch is closed.
+**/
+	Container getParent(Component c)
+	{
+		if(moves.containsKey(c))return moves.get(c);
+		return c.getParent();
+	}
+	void add(Component c, Container container)
+	{
+		moves.remove(c);
+		moves.put(c,container);
+	}
+	void remove(Component c, Container container)
+	{
+		if(getParent(c)!=container)return;
+		moves.remove(c);
+		moves.put(c,null);
+	}
+	void invalidate(PageLayout layout)
+	{
+		layouts.add(layout);
+	}
+	void validate(Container container)
+	{
+		containers.add(container);
+	}
+/**
+	Applies the recorded changes. The components are removed from and
+	added to their containers, grouped by the container, the recorded 
+	layouts are invalidated, and the recorded containers, together with
+	the given container if anything has changed, are validated and 
+	repainted.
+
+	@param main the container of the layout whose batch is closed.
+**/
+	void apply(Container main)
+	{
+		boolean changed=!moves.isEmpty()||!layouts.isEmpty();
+		LinkedHashMap<Container,Vector<Component>> removals=
+				new LinkedHashMap<Container,Vector<Component>>();
+		LinkedHashMap<Container,Vector<Component>> additions=
+				new LinkedHashMap<Container,Vector<Component>>();
+		for(Map.Entry<Component,Container> e:moves.entrySet())
+		{
+			Component c=e.getKey();
+			Container to=e.getValue();
+			Container from=c.getParent();
+			if(from==to)continue;
+			if(from!=null)group(removals,from,c);
+			if(to!=null)group(additions,to,c);
+		}
+		moves.clear();
+		for(Map.Entry<Container,Vector<Component>> e:
+					removals.entrySet())
+			for(Component c:e.getValue())e.getKey().remove(c);
+		for(Map.Entry<Container,Vector<Component>> e:
+					additions.entrySet())
+			for(Component c:e.getValue())e.getKey().add(c);
+		for(PageLayout layout:layouts)layout.invalidateCells();
+		layouts.clear();
+		if(changed&&(main!=null))containers.add(main);
+		for(Container c:containers)
+		{
+			c.validate();
+			c.repaint();
+		}
+		containers.clear();
+	}
+	private static void group(
+		LinkedHashMap<Container,Vector<Component>> groups,
+		Container container, Component c)
+	{
+		Vector<Component> v=groups.get(container);
+		if(v==null)
+		{
+			v=new Vector<Component>();
+			groups.put(container,v);
+		}
+		v.add(c);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+	------------------------------------------------
+	XMLEscaper.java
+	------------------------------------------------
+
+	This software is distributed under the 
+	GNU Lesser General Public  License (LGPL) Version 2.1.
+
+	You should have received a copy of the license with this
+	distribution.
+
+	The license is also available at
+
+	http://www.gnu.org/licenses/lgpl.txt	
+*/
+package pagelayout;
+/**
+	Replaces the characters which may not appear in the value of an 
+	XML attribute, i.e. <code>&amp;</code>, <code>&lt;</code>, 
+	<code>&gt;</code> and <code>"</code>, and the line breaks and tabs,
+	which would be normalized to spaces when the document is read, by
+	references. It is used by both 
+	{@link pagelayout.XMLPrintStreamImpl XMLPrintStreamImpl} and
+	{@link pagelayout.BufferedXMLPrintStream BufferedXMLPrintStream}.
+**/
+final class XMLEscaper
+{
+	private XMLEscaper()
+	{
+	}
+/**
+	Returns the reference which replaces the given character, or
+	<code>null</code> if the character need not be replaced.
+
+	@param c the character.
+**/
+	static String reference(char c)
+	{
+		switch(c)
+		{
+			case '&': return "&amp;";
+			case '<': return "&lt;";
+			case '>': return "&gt;";
+			case '"': return "&quot;";
+			case '\n': return "&#10;";
+			case '\r': return "&#13;";
+			case '\t': return "&#9;";
+			default: return null;
+		}
+	}
+/**
+	Returns the string with the characters which may not appear in 
+	the value of an attribute replaced by references. The string 
+	itself is returned if none of its characters is replaced.
+
+	@param s the string, which may be <code>null</code>.
+**/
+	static String escape(String s)
+	{
+		if(s==null)return null;
+		int n=s.length();
+		StringBuilder b=null;
+		int start=0;
+		for(int i=0;i<n;i++)
+		{
+			String e=reference(s.charAt(i));
+			if(e==null)continue;
+			if(b==null)b=new StringBuilder(n+16);
+			b.append(s,start,i).append(e);
+			start=i+1;
+		}
+		if(b==null)return s;
+		return b.append(s,start,n).toString();
+	}
+}
@@ -22,6 +22,9 @@ import java.io.*;
    This class is used by Gola ( http://gola.mathnium.com ), 
    a visual layout editor, and is not
    needed if you want to hand code the layout.
+	The string values of the attributes are escaped in the same way 
+	as by {@link pagelayout.BufferedXMLPrintStream 
+	BufferedXMLPrintStream}.
 
 	@version  1.16  05/10/2008
 **/
@@ -66,7 +69,7 @@ public class XMLPrintStreamImpl implements XMLPrintStream
 	}
 	public void addAttribute(String name, String value)
 	{
-		ps.printf(" %s = \"%s\" ",name,value);
+		ps.printf(" %s = \"%s\" ",name,XMLEscaper.escape(value));
 	}
 	public void addAttribute(String name, int value)
 	{